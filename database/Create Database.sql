@@ -19,6 +19,11 @@ GO
 USE [CampanaSalud]
 GO
 
+-- Seguimiento de cambios: permite a cada cliente invalidar sus cachés
+-- cuando otro escritorio modifica datos (ver ChangeNotifier)
+ALTER DATABASE [CampanaSalud] SET CHANGE_TRACKING = ON (CHANGE_RETENTION = 2 DAYS, AUTO_CLEANUP = ON)
+GO
+
 -- Crear tabla Usuario
 CREATE TABLE [dbo].[Usuario](
     [idUsuario] [int] IDENTITY(1,1) NOT NULL,
@@ -149,6 +154,26 @@ CREATE NONCLUSTERED INDEX [idx_RegistroParticipacion_Actividad] ON [dbo].[Regist
 GO
 CREATE NONCLUSTERED INDEX [idx_RegistroParticipacion_Participante] ON [dbo].[RegistroParticipacion] ([idParticipante] ASC)
 GO
+-- Índices para la paginación por clave (keyset) de los listados
+CREATE NONCLUSTERED INDEX [idx_Participante_Apellido] ON [dbo].[Participante] ([apellido] ASC, [idParticipante] ASC)
+GO
+CREATE NONCLUSTERED INDEX [idx_Actividad_Fecha] ON [dbo].[Actividad] ([fecha] ASC, [idActividad] ASC) INCLUDE ([nombre], [estado])
+GO
+-- Índice de cobertura para los combos de campañas (proyección resumida)
+CREATE NONCLUSTERED INDEX [idx_Campana_Nombre] ON [dbo].[Campana] ([nombre] ASC) INCLUDE ([fechaInicio], [fechaFin], [estado])
+GO
+
+-- Tablas con seguimiento de cambios
+ALTER TABLE [dbo].[Campana] ENABLE CHANGE_TRACKING
+GO
+ALTER TABLE [dbo].[Actividad] ENABLE CHANGE_TRACKING
+GO
+ALTER TABLE [dbo].[Participante] ENABLE CHANGE_TRACKING
+GO
+ALTER TABLE [dbo].[RegistroParticipacion] ENABLE CHANGE_TRACKING
+GO
+ALTER TABLE [dbo].[Usuario] ENABLE CHANGE_TRACKING
+GO
 
 -- Crear vistas
 CREATE VIEW [dbo].[vw_ParticipacionPorActividad] AS
@@ -1,3 +1,4 @@
+import controller.AppContext;
 import view.LoginView;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
@@ -12,6 +13,9 @@ public class Main {
             e.printStackTrace();
         }
 
+        // Bring the database layer up in the background while the login screen is shown
+        AppContext.get().start();
+
         SwingUtilities.invokeLater(() -> {
             LoginView loginView = new LoginView();
             loginView.setVisible(true);
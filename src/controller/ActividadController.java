@@ -1,10 +1,13 @@
 package controller;
 
-import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import model.Actividad;
+import model.ActividadResumen;
 import model.dao.ActividadDAO;
+import model.dao.Page;
 
 /**
  * Controller class for handling Actividad business logic
@@ -12,8 +15,8 @@ import model.dao.ActividadDAO;
 public class ActividadController {
     private final ActividadDAO actividadDAO;
     
-    public ActividadController() {
-        this.actividadDAO = new ActividadDAO();
+    ActividadController(ActividadDAO actividadDAO) {
+        this.actividadDAO = actividadDAO;
     }
     
     /**
@@ -89,6 +92,15 @@ public class ActividadController {
         return actividadDAO.findById(idActividad);
     }
     
+    /**
+     * Get many activities by ID at once
+     * @param ids Activity IDs
+     * @return The activities found, keyed by ID
+     */
+    public Map<Integer, Actividad> obtenerActividadesPorIds(Collection<Integer> ids) {
+        return actividadDAO.findByIds(ids);
+    }
+    
     /**
      * Get all activities
      * @return A list of all activities
@@ -97,6 +109,42 @@ public class ActividadController {
         return actividadDAO.findAll();
     }
     
+    /**
+     * Get all activities, each with the name of its campaign
+     * @return A list of all activities
+     */
+    public List<Actividad> listarActividadesConCampana() {
+        return actividadDAO.findAllWithCampanaNombre();
+    }
+    
+    /**
+     * Get a summary of all activities, for combo boxes and list screens
+     * @return A list of activity summaries
+     */
+    public List<ActividadResumen> listarActividadesResumen() {
+        return actividadDAO.findAllResumen();
+    }
+    
+    /**
+     * Get one page of activities ordered by date
+     * @param despuesDe The last activity of the previous page, or null for the first page
+     * @param tamanoPagina Maximum number of activities on the page
+     * @return The page of activities
+     */
+    public Page<Actividad> listarActividadesPaginadas(Actividad despuesDe, int tamanoPagina) {
+        return actividadDAO.findPageByFecha(despuesDe, tamanoPagina);
+    }
+    
+    /**
+     * Get one page of activities ordered by date, each with the name of its campaign
+     * @param despuesDe The last activity of the previous page, or null for the first page
+     * @param tamanoPagina Maximum number of activities on the page
+     * @return The page of activities
+     */
+    public Page<Actividad> listarActividadesConCampanaPaginadas(Actividad despuesDe, int tamanoPagina) {
+        return actividadDAO.findPageByFechaWithCampanaNombre(despuesDe, tamanoPagina);
+    }
+    
     /**
      * Search activities by name
      * @param nombre Name to search for
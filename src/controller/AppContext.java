@@ -0,0 +1,144 @@
+package controller;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import model.dao.ActividadDAO;
+import model.dao.CampanaCache;
+import model.dao.CampanaDAO;
+import model.dao.DniIndex;
+import model.dao.ParticipanteDAO;
+import model.dao.PrediccionDAO;
+import model.dao.RegistroParticipacionDAO;
+import model.dao.UsuarioDAO;
+import model.database.ChangeNotifier;
+import model.database.DatabaseBootstrap;
+import model.database.DatabaseConnection;
+import model.database.DatabaseHealthMonitor;
+import util.Logger;
+
+/**
+ * Owns the controllers and the data layer for the whole application.
+ * Views take their controllers from here instead of creating them, so
+ * every window works with the same DAOs, campaign cache and DNI index,
+ * and whatever one window warmed up is still warm in the next.
+ * <p>
+ * {@link #start()} brings the data layer up in order: the database
+ * bootstrap (driver, pool, health monitor, change notifications), then
+ * the DNI index. {@link #shutdown()} stops it in reverse order and runs
+ * from a shutdown hook when the application exits.
+ */
+public final class AppContext {
+    private static final Logger LOG = Logger.getLogger(AppContext.class);
+
+    private static volatile AppContext instance;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    private final CampanaCache campanaCache;
+    private final DniIndex dniIndex;
+
+    private final ActividadController actividadController;
+    private final CampanaController campanaController;
+    private final ParticipanteController participanteController;
+    private final PrediccionController prediccionController;
+    private final RegistroParticipacionController registroParticipacionController;
+    private final UsuarioController usuarioController;
+
+    private AppContext() {
+        campanaCache = CampanaCache.getInstance();
+        dniIndex = DniIndex.getInstance();
+
+        RegistroParticipacionDAO registroDAO = new RegistroParticipacionDAO();
+        actividadController = new ActividadController(new ActividadDAO());
+        campanaController = new CampanaController(new CampanaDAO(), campanaCache);
+        participanteController = new ParticipanteController(new ParticipanteDAO(), dniIndex);
+        prediccionController = new PrediccionController(new PrediccionDAO(), campanaCache, registroDAO);
+        registroParticipacionController = new RegistroParticipacionController(registroDAO);
+        usuarioController = new UsuarioController(new UsuarioDAO());
+    }
+
+    /**
+     * @return The context shared by all views, created on first use
+     */
+    public static AppContext get() {
+        AppContext context = instance;
+        if (context == null) {
+            synchronized (AppContext.class) {
+                context = instance;
+                if (context == null) {
+                    context = new AppContext();
+                    instance = context;
+                }
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Starts the database bootstrap and then the DNI index in the
+     * background, and registers the shutdown hook. Calling it again does nothing.
+     */
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        // Load the driver and open the first connections while the login screen is shown
+        DatabaseBootstrap.start();
+        // Then load the participant DNIs used by the check-in desk
+        dniIndex.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "app-shutdown"));
+        LOG.info("Application context started");
+    }
+
+    /**
+     * Stops change notifications, the health monitor and the background
+     * tasks, then closes the connection pools. Calling it again does nothing.
+     */
+    public void shutdown() {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+        ChangeNotifier.stop();
+        DatabaseHealthMonitor.stop();
+        DatabaseConnection.shutdown();
+        LOG.info("Application context stopped");
+    }
+
+    public ActividadController getActividadController() {
+        return actividadController;
+    }
+
+    public CampanaController getCampanaController() {
+        return campanaController;
+    }
+
+    public ParticipanteController getParticipanteController() {
+        return participanteController;
+    }
+
+    public PrediccionController getPrediccionController() {
+        return prediccionController;
+    }
+
+    public RegistroParticipacionController getRegistroParticipacionController() {
+        return registroParticipacionController;
+    }
+
+    public UsuarioController getUsuarioController() {
+        return usuarioController;
+    }
+
+    /**
+     * @return The campaign cache, e.g. to show its metrics
+     */
+    public CampanaCache getCampanaCache() {
+        return campanaCache;
+    }
+
+    /**
+     * @return The in-memory DNI index of the check-in desk
+     */
+    public DniIndex getDniIndex() {
+        return dniIndex;
+    }
+}
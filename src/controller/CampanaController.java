@@ -1,9 +1,12 @@
 package controller;
 
-import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import model.Campana;
+import model.CampanaResumen;
+import model.dao.CampanaCache;
 import model.dao.CampanaDAO;
 
 /**
@@ -11,14 +14,11 @@ import model.dao.CampanaDAO;
  */
 public class CampanaController {
     private final CampanaDAO campanaDAO;
+    private final CampanaCache campanaCache;
     
-    public CampanaController() {
-        try {
-            this.campanaDAO = new CampanaDAO();
-        } catch (SQLException e) {
-            System.err.println("Error initializing CampanaDAO: " + e.getMessage());
-            throw new RuntimeException("Failed to initialize database connection", e);
-        }
+    CampanaController(CampanaDAO campanaDAO, CampanaCache campanaCache) {
+        this.campanaDAO = campanaDAO;
+        this.campanaCache = campanaCache;
     }
     
     /**
@@ -43,7 +43,11 @@ public class CampanaController {
         campana.setFechaFin(fechaFin);
         campana.setIdResponsable(idResponsable);
         
-        return campanaDAO.insert(campana);
+        if (!campanaDAO.insert(campana)) {
+            return false;
+        }
+        campanaCache.invalidate(campana.getIdCampana());
+        return true;
     }
     
     /**
@@ -57,7 +61,7 @@ public class CampanaController {
      * @return true if successful, false otherwise
      */
     public boolean actualizarCampana(int idCampana, String nombre, String descripcion, Date fechaInicio, Date fechaFin, int idResponsable) {
-        // Check if campaign exists
+        // Check if campaign exists (read from the database: the cached copy is shared)
         Campana campana = campanaDAO.findById(idCampana);
         if (campana == null) {
             return false; // Campaign doesn't exist
@@ -74,7 +78,9 @@ public class CampanaController {
         campana.setFechaFin(fechaFin);
         campana.setIdResponsable(idResponsable);
         
-        return campanaDAO.update(campana);
+        boolean actualizada = campanaDAO.update(campana);
+        campanaCache.invalidate(idCampana);
+        return actualizada;
     }
     
     /**
@@ -83,7 +89,9 @@ public class CampanaController {
      * @return true if successful, false otherwise
      */
     public boolean eliminarCampana(int idCampana) {
-        return campanaDAO.delete(idCampana);
+        boolean eliminada = campanaDAO.delete(idCampana);
+        campanaCache.invalidate(idCampana);
+        return eliminada;
     }
     
     /**
@@ -92,7 +100,16 @@ public class CampanaController {
      * @return The campaign if found, null otherwise
      */
     public Campana obtenerCampanaPorId(int idCampana) {
-        return campanaDAO.findById(idCampana);
+        return campanaCache.findById(idCampana);
+    }
+    
+    /**
+     * Get many campaigns by ID at once
+     * @param ids Campaign IDs
+     * @return The campaigns found, keyed by ID
+     */
+    public Map<Integer, Campana> obtenerCampanasPorIds(Collection<Integer> ids) {
+        return campanaDAO.findByIds(ids);
     }
     
     /**
@@ -103,13 +120,21 @@ public class CampanaController {
         return campanaDAO.findAll();
     }
     
+    /**
+     * Get a summary of all campaigns, for combo boxes and list screens
+     * @return A list of campaign summaries
+     */
+    public List<CampanaResumen> listarCampanasResumen() {
+        return campanaCache.findAllResumen();
+    }
+    
     /**
      * Get campaigns by responsible user
      * @param idResponsable Responsible user ID
      * @return A list of campaigns by the user
      */
     public List<Campana> listarCampanasPorResponsable(int idResponsable) {
-        return campanaDAO.findByResponsable(idResponsable);
+        return campanaCache.findByResponsable(idResponsable);
     }
     
     /**
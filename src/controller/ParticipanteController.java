@@ -1,21 +1,34 @@
 package controller;
 
+import java.io.File;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import model.Participante;
+import model.ParticipanteResumen;
+import model.dao.DniFilter;
+import model.dao.DniIndex;
+import model.dao.Page;
 import model.dao.ParticipanteDAO;
+import model.dao.ParticipanteImport;
 import model.database.DatabaseConnection;
+import util.Logger;
 
 /**
  * Controller class for handling Participante business logic
  */
 public class ParticipanteController {
+    private static final Logger LOG = Logger.getLogger(ParticipanteController.class);
     private final ParticipanteDAO participanteDAO;
+    private final DniIndex dniIndex;
     
-    public ParticipanteController() {
-        this.participanteDAO = new ParticipanteDAO();
+    ParticipanteController(ParticipanteDAO participanteDAO, DniIndex dniIndex) {
+        this.participanteDAO = participanteDAO;
+        this.dniIndex = dniIndex;
     }
     
     /**
@@ -48,20 +61,38 @@ public class ParticipanteController {
             pstmt.setString(7, telefono);
             pstmt.setString(8, correo);
             
+            DniFilter.participantes().add(dni); // Before the row can be seen
             return pstmt.executeUpdate() > 0;
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Error registering participant", e);
             return false;
         } finally {
             try {
                 if (pstmt != null) pstmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
     }
     
+    /**
+     * Import participants from a CSV file, such as a municipal census.
+     * Rows with errors or with a DNI already registered are written to a
+     * rejects file next to the imported one.
+     * @param archivo The CSV file
+     * @param progreso Receives progress while the import runs; may be null
+     * @return The counts of the import, or null if it failed and nothing was imported
+     */
+    public ParticipanteImport.Result importarParticipantes(File archivo, ParticipanteImport.ProgressListener progreso) {
+        try {
+            return new ParticipanteImport(archivo.toPath(), progreso).run();
+        } catch (IOException | SQLException e) {
+            LOG.error("Error importing participants from {}: {}", archivo, e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Update an existing participant
      * @param idParticipante Participant's ID
@@ -92,7 +123,12 @@ public class ParticipanteController {
         participante.setSexo(sexo);
         participante.setDireccion(direccion);
         
-        return participanteDAO.update(participante);
+        if (!participanteDAO.update(participante)) {
+            return false;
+        }
+        dniIndex.removeById(idParticipante); // The DNI may have changed
+        dniIndex.put(resumen(participante));
+        return true;
     }
     
     /**
@@ -101,7 +137,11 @@ public class ParticipanteController {
      * @return true if successful, false otherwise
      */
     public boolean eliminarParticipante(int idParticipante) {
-        return participanteDAO.delete(idParticipante);
+        if (!participanteDAO.delete(idParticipante)) {
+            return false;
+        }
+        dniIndex.removeById(idParticipante);
+        return true;
     }
     
     /**
@@ -113,6 +153,15 @@ public class ParticipanteController {
         return participanteDAO.findById(idParticipante);
     }
     
+    /**
+     * Get many participants by ID at once
+     * @param ids Participant IDs
+     * @return The participants found, keyed by ID
+     */
+    public Map<Integer, Participante> obtenerParticipantesPorIds(Collection<Integer> ids) {
+        return participanteDAO.findByIds(ids);
+    }
+    
     /**
      * Get a participant by DNI
      * @param dni Participant's DNI
@@ -130,6 +179,16 @@ public class ParticipanteController {
         return participanteDAO.findAll();
     }
     
+    /**
+     * Get one page of participants ordered by last name
+     * @param despuesDe The last participant of the previous page, or null for the first page
+     * @param tamanoPagina Maximum number of participants on the page
+     * @return The page of participants
+     */
+    public Page<Participante> listarParticipantesPaginados(Participante despuesDe, int tamanoPagina) {
+        return participanteDAO.findPageByApellido(despuesDe, tamanoPagina);
+    }
+    
     /**
      * Search participants by name
      * @param nombre Name to search for
@@ -146,4 +205,34 @@ public class ParticipanteController {
    public Participante buscarPorDni(String dni) {
        return participanteDAO.findByDni(dni);
    }
+   
+   /**
+    * Busca el resumen de un participante por su DNI en el índice en memoria,
+    * sin ir a la base de datos salvo que el DNI aún no esté indexado
+    * @param dni El DNI del participante a buscar
+    * @return El resumen del participante si se encuentra, null si no existe
+    */
+   public ParticipanteResumen buscarResumenPorDni(String dni) {
+       ParticipanteResumen encontrado = dniIndex.lookup(dni);
+       if (encontrado != null) {
+           return encontrado;
+       }
+       // El índice puede estar cargándose o no tener aún las altas más recientes
+       Participante participante = participanteDAO.findByDni(dni);
+       if (participante == null) {
+           return null;
+       }
+       encontrado = resumen(participante);
+       dniIndex.put(encontrado);
+       return encontrado;
+   }
+   
+   private static ParticipanteResumen resumen(Participante participante) {
+       ParticipanteResumen resumen = new ParticipanteResumen();
+       resumen.setIdParticipante(participante.getIdParticipante());
+       resumen.setDni(participante.getDni());
+       resumen.setNombre(participante.getNombre());
+       resumen.setApellido(participante.getApellido());
+       return resumen;
+   }
 } 
\ No newline at end of file
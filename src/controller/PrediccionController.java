@@ -1,73 +1,52 @@
 package controller;
 
-import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 import model.Campana;
 import model.Prediccion;
-import model.dao.CampanaDAO;
+import model.dao.CampanaCache;
 import model.dao.PrediccionDAO;
 import model.dao.RegistroParticipacionDAO;
+import util.Logger;
 
 /**
  * Controlador para manejar la lógica de negocio de Prediccion y algoritmos de predicción
  */
 public class PrediccionController {
+    private static final Logger LOG = Logger.getLogger(PrediccionController.class);
     private final PrediccionDAO prediccionDAO;
-    private final CampanaDAO campanaDAO;
+    private final CampanaCache campanaCache;
     private final RegistroParticipacionDAO registroDAO;
     
-    public PrediccionController() {
-        try {
-            this.prediccionDAO = new PrediccionDAO();
-            this.campanaDAO = new CampanaDAO();
-            this.registroDAO = new RegistroParticipacionDAO();
-        } catch (SQLException e) {
-            System.err.println("Error initializing DAOs: " + e.getMessage());
-            throw new RuntimeException("Failed to initialize database connection", e);
-        }
+    PrediccionController(PrediccionDAO prediccionDAO, CampanaCache campanaCache, RegistroParticipacionDAO registroDAO) {
+        this.prediccionDAO = prediccionDAO;
+        this.campanaCache = campanaCache;
+        this.registroDAO = registroDAO;
     }
     
     /**
      * Genera una predicción para una campaña
      * @param idCampana ID de la campaña
      * @param notas Notas sobre la predicción
-     * @return true si es exitoso, false en caso contrario
+     * @return La predicción guardada, con su ID; null si no se pudo generar
      */
-    public boolean generarPrediccion(int idCampana, String notas) {
-        // Verificar si la campaña existe
-        Campana campana = campanaDAO.findById(idCampana);
+    public Prediccion generarPrediccion(int idCampana, String notas) {
+        // Los datos de entrada se leen una sola vez y se comparten entre los cálculos
+        Campana campana = campanaCache.findById(idCampana);
         if (campana == null) {
-            return false; // La campaña no existe
+            return null; // La campaña no existe
         }
+        List<Campana> campanasDelResponsable = campanaCache.findByResponsable(campana.getIdResponsable());
         
-        // Calcular participación estimada basada en datos históricos
-        int participacionEstimada = calcularParticipacionEstimada(idCampana);
-        
-        // Calcular nivel de confianza basado en consistencia de datos históricos
-        double nivelConfianza = calcularNivelConfianza(idCampana);
-        
-        // Crear nueva predicción
         Prediccion prediccion = new Prediccion();
         prediccion.setIdCampana(idCampana);
         prediccion.setFechaPrediccion(new Date());
-        prediccion.setParticipacionEstimada(participacionEstimada);
-        prediccion.setNivelConfianza(nivelConfianza);
+        prediccion.setParticipacionEstimada(calcularParticipacionEstimada(campana, campanasDelResponsable));
+        prediccion.setNivelConfianza(calcularNivelConfianza(campana, campanasDelResponsable));
         prediccion.setNotas(notas);
         
-        // Check if prediction already exists for the campaign
-        Prediccion prediccionExistente = prediccionDAO.findByCampana(idCampana);
-        if (prediccionExistente != null) {
-            // Update existing prediction
-            prediccionExistente.setFechaPrediccion(new Date());
-            prediccionExistente.setParticipacionEstimada(participacionEstimada);
-            prediccionExistente.setNivelConfianza(nivelConfianza);
-            prediccionExistente.setNotas(notas);
-            return prediccionDAO.update(prediccionExistente);
-        } else {
-            // Insert new prediction
-            return prediccionDAO.insert(prediccion);
-        }
+        // Una sola escritura: inserta o reemplaza la predicción de la campaña
+        return prediccionDAO.upsert(prediccion);
     }
     
     /**
@@ -85,7 +64,10 @@ public class PrediccionController {
         }
 
         // Recalculate confidence level when updating manually
-        double nivelConfianza = calcularNivelConfianza(prediccion.getIdCampana());
+        Campana campana = campanaCache.findById(prediccion.getIdCampana());
+        double nivelConfianza = campana == null
+            ? 50.0 // Default confidence for unknown campaigns
+            : calcularNivelConfianza(campana, campanaCache.findByResponsable(campana.getIdResponsable()));
 
         prediccion.setFechaPrediccion(new Date());
         prediccion.setParticipacionEstimada(participacionEstimada);
@@ -130,19 +112,22 @@ public class PrediccionController {
         return prediccionDAO.findAll();
     }
     
+    /**
+     * Get all predictions, each with the name of its campaign
+     * @return A list of all predictions
+     */
+    public List<Prediccion> listarPrediccionesConCampana() {
+        return prediccionDAO.findAllWithCampanaNombre();
+    }
+    
     /**
      * Calculate estimated participation for a campaign based on historical data
-     * @param idCampana Campaign ID
+     * @param campanaNueva The campaign
+     * @param campanasAnteriores All campaigns by the same responsible, including this one
      * @return Estimated participation count
      */
-    private int calcularParticipacionEstimada(int idCampana) {
-        // Get all campaigns by the same responsible
-        Campana campanaNueva = campanaDAO.findById(idCampana);
-        if (campanaNueva == null) {
-            return 0;
-        }
-        
-        List<Campana> campanasAnteriores = campanaDAO.findByResponsable(campanaNueva.getIdResponsable());
+    private int calcularParticipacionEstimada(Campana campanaNueva, List<Campana> campanasAnteriores) {
+        int idCampana = campanaNueva.getIdCampana();
         
         // If this is the first campaign, use a default value
         if (campanasAnteriores.size() <= 1) {
@@ -190,18 +175,12 @@ public class PrediccionController {
     
     /**
      * Calculate confidence level for a prediction based on historical data consistency
-     * @param idCampana Campaign ID
+     * @param campanaNueva The campaign
+     * @param campanasAnteriores All campaigns by the same responsible, including this one
      * @return Confidence level as a percentage (0-100)
      */
-    private double calcularNivelConfianza(int idCampana) {
-        // Get campaign information
-        Campana campanaNueva = campanaDAO.findById(idCampana);
-        if (campanaNueva == null) {
-            return 50.0; // Default confidence for unknown campaigns
-        }
-        
-        // Get campaigns by the same responsible
-        List<Campana> campanasAnteriores = campanaDAO.findByResponsable(campanaNueva.getIdResponsable());
+    private double calcularNivelConfianza(Campana campanaNueva, List<Campana> campanasAnteriores) {
+        int idCampana = campanaNueva.getIdCampana();
         
         // If this is the first campaign, confidence is moderate
         if (campanasAnteriores.size() <= 1) {
@@ -2,23 +2,22 @@ package controller;
 
 import java.util.List;
 import model.RegistroParticipacion;
+import model.dao.InsertOutcome;
+import model.dao.Page;
 import model.dao.RegistroParticipacionDAO;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import model.Participante;
-import model.database.DatabaseConnection;
+import model.database.TransactionScope;
+import util.Logger;
 
 /**
  * Controller class for handling RegistroParticipacion business logic
  */
 public class RegistroParticipacionController {
+    private static final Logger LOG = Logger.getLogger(RegistroParticipacionController.class);
     private final RegistroParticipacionDAO registroDAO;
     
-    public RegistroParticipacionController() {
-        this.registroDAO = new RegistroParticipacionDAO();
+    RegistroParticipacionController(RegistroParticipacionDAO registroDAO) {
+        this.registroDAO = registroDAO;
     }
     
     /**
@@ -30,73 +29,48 @@ public class RegistroParticipacionController {
      * @return true if successful, false otherwise
      */
     public boolean registrarParticipacion(int idParticipante, int idActividad, String resultado, String observaciones) {
-        // Primero verificar si ya existe un registro
-        if (existeRegistro(idParticipante, idActividad)) {
-            System.err.println("El participante ya está registrado en esta actividad");
-            return false;
-        }
-        
-        String sql = "INSERT INTO RegistroParticipacion (idParticipante, idActividad, resultado, observaciones) VALUES (?, ?, ?, ?)";
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        
-        try {
-            conn = DatabaseConnection.getConnection();
-            stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, idParticipante);
-            stmt.setInt(2, idActividad);
-            stmt.setString(3, resultado);
-            stmt.setString(4, observaciones);
+        // La verificación y el insert comparten una conexión y una transacción
+        try (TransactionScope tx = TransactionScope.begin()) {
+            // Primero verificar si ya existe un registro
+            if (registroDAO.exists(idParticipante, idActividad)) {
+                LOG.warn("El participante {} ya está registrado en la actividad {}", idParticipante, idActividad);
+                return false;
+            }
+            
+            RegistroParticipacion registro = new RegistroParticipacion();
+            registro.setIdParticipante(idParticipante);
+            registro.setIdActividad(idActividad);
+            registro.setResultado(resultado);
+            registro.setObservaciones(observaciones);
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            if (!registroDAO.insert(registro)) {
+                return false;
+            }
+            tx.commit();
+            return true;
         } catch (SQLException e) {
-            System.err.println("Error registering participation: " + e.getMessage());
+            LOG.error("Error registering participation: {}", e.getMessage());
             return false;
-        } finally {
-            try {
-                if (stmt != null) stmt.close();
-                if (conn != null) conn.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
         }
     }
     
     /**
-     * Check if a participation record already exists
-     * @param idParticipante Participant ID
-     * @param idActividad Activity ID
-     * @return true if exists, false otherwise
+     * Register the attendance of many participants at once, e.g. the list
+     * uploaded by a brigade after an activity. Participants already
+     * registered are skipped instead of failing the whole list.
+     * @param registros The records to register
+     * @return The outcome of each record, in the same order
      */
-    private boolean existeRegistro(int idParticipante, int idActividad) {
-        String sql = "SELECT COUNT(*) FROM RegistroParticipacion WHERE idParticipante = ? AND idActividad = ?";
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        ResultSet rs = null;
-        
-        try {
-            conn = DatabaseConnection.getConnection();
-            stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, idParticipante);
-            stmt.setInt(2, idActividad);
-            
-            rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
-            }
-        } catch (SQLException e) {
-            System.err.println("Error checking existing registration: " + e.getMessage());
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-                if (conn != null) conn.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
+    public List<InsertOutcome> registrarParticipaciones(List<RegistroParticipacion> registros) {
+        List<InsertOutcome> resultados = registroDAO.insertAll(registros);
+        int insertados = 0;
+        for (InsertOutcome resultado : resultados) {
+            if (resultado == InsertOutcome.INSERTED) {
+                insertados++;
             }
         }
-        return false;
+        LOG.info("Registrados {} de {} participaciones", insertados, registros.size());
+        return resultados;
     }
     
     /**
@@ -164,46 +138,18 @@ public class RegistroParticipacionController {
      * @return A list of records for the activity
      */
     public List<RegistroParticipacion> listarRegistrosPorActividad(int idActividad) {
-        List<RegistroParticipacion> registros = new ArrayList<>();
-        String sql = "SELECT r.*, p.* FROM RegistroParticipacion r " +
-                    "INNER JOIN Participante p ON r.idParticipante = p.idParticipante " +
-                    "WHERE r.idActividad = ?";
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, idActividad);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                RegistroParticipacion registro = new RegistroParticipacion();
-                registro.setIdRegistro(rs.getInt("idRegistro"));
-                registro.setIdParticipante(rs.getInt("idParticipante"));
-                registro.setIdActividad(rs.getInt("idActividad"));
-                registro.setResultado(rs.getString("resultado"));
-                registro.setObservaciones(rs.getString("observaciones"));
-                registro.setFechaRegistro(rs.getTimestamp("fechaRegistro"));
-                
-                // Crear y establecer el participante
-                Participante participante = new Participante();
-                participante.setIdParticipante(rs.getInt("idParticipante"));
-                participante.setNombre(rs.getString("nombre"));
-                participante.setApellido(rs.getString("apellido"));
-                participante.setDni(rs.getString("dni"));
-                participante.setEdad(rs.getInt("edad"));
-                participante.setSexo(rs.getString("sexo"));
-                participante.setDireccion(rs.getString("direccion"));
-                participante.setTelefono(rs.getString("telefono"));
-                participante.setCorreo(rs.getString("correo"));
-                
-                registro.setParticipante(participante);
-                registros.add(registro);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        return registros;
+        return registroDAO.findByActividadWithParticipante(idActividad);
+    }
+    
+    /**
+     * Get one page of the records of an activity, with their participants
+     * @param idActividad Activity ID
+     * @param despuesDeIdRegistro The last record ID of the previous page, or 0 for the first page
+     * @param tamanoPagina Maximum number of records on the page
+     * @return The page of records
+     */
+    public Page<RegistroParticipacion> listarRegistrosPorActividadPaginados(int idActividad, int despuesDeIdRegistro, int tamanoPagina) {
+        return registroDAO.findPageByActividadWithParticipante(idActividad, despuesDeIdRegistro, tamanoPagina);
     }
     
     /**
@@ -1,6 +1,5 @@
 package controller;
 
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import model.Usuario;
@@ -12,13 +11,8 @@ import model.dao.UsuarioDAO;
 public class UsuarioController {
     private final UsuarioDAO usuarioDAO;
     
-    public UsuarioController() {
-        try {
-            usuarioDAO = new UsuarioDAO();
-        } catch (SQLException e) {
-            System.err.println("Error initializing UsuarioDAO: " + e.getMessage());
-            throw new RuntimeException("Failed to initialize database connection", e);
-        }
+    UsuarioController(UsuarioDAO usuarioDAO) {
+        this.usuarioDAO = usuarioDAO;
     }
     
     /**
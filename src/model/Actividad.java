@@ -15,6 +15,7 @@ public class Actividad {
     private int capacidad;
     private int participantesRegistrados;
     private String estado;
+    private String nombreCampana; // Only filled by queries that join Campana
     
     public Actividad() {
     }
@@ -69,6 +70,10 @@ public class Actividad {
     
     public void setEstado(String estado) {this.estado = estado;}
     
+    public String getNombreCampana() {return nombreCampana;}
+    
+    public void setNombreCampana(String nombreCampana) {this.nombreCampana = nombreCampana;}
+    
     // Alias methods for cupoMaximo (maps to capacidad)
     public int getCupoMaximo() {
         return capacidad;
@@ -0,0 +1,32 @@
+package model;
+
+import java.util.Date;
+
+/**
+ * Compact view of an activity for pickers and lists: only the columns
+ * needed to show and choose it, without the descripcion text
+ */
+public class ActividadResumen {
+    private int idActividad;
+    private String nombre;
+    private Date fecha;
+    private String estado;
+    
+    public ActividadResumen() {
+    }
+    
+    public int getIdActividad() { return idActividad; }
+    public String getNombre() { return nombre; }
+    public Date getFecha() { return fecha; }
+    public String getEstado() { return estado; }
+    
+    public void setIdActividad(int idActividad) { this.idActividad = idActividad; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+    public void setFecha(Date fecha) { this.fecha = fecha; }
+    public void setEstado(String estado) { this.estado = estado; }
+    
+    @Override
+    public String toString() {
+        return idActividad + " - " + nombre;
+    }
+}
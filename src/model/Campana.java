@@ -14,6 +14,7 @@ public class Campana {
     private String descripcion;
     private String estado;
     private int idResponsable;
+    private Date fechaCreacion; // Asignada por la base de datos
     
     // Constructor
     public Campana() {
@@ -49,6 +50,7 @@ public class Campana {
     public String getDescripcion() { return descripcion; }
     public String getEstado() { return estado; }
     public int getIdResponsable() { return idResponsable; }
+    public Date getFechaCreacion() { return fechaCreacion; }
     
     // Setters
     public void setIdCampana(int idCampana) { this.idCampana = idCampana; }
@@ -59,6 +61,7 @@ public class Campana {
     public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
     public void setEstado(String estado) { this.estado = estado; }
     public void setIdResponsable(int idResponsable) { this.idResponsable = idResponsable; }
+    public void setFechaCreacion(Date fechaCreacion) { this.fechaCreacion = fechaCreacion; }
     
     @Override
     public String toString() {
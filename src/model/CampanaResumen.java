@@ -0,0 +1,35 @@
+package model;
+
+import java.util.Date;
+
+/**
+ * Compact view of a campaign for pickers and lists: only the columns
+ * needed to show and choose it, without the descripcion text
+ */
+public class CampanaResumen {
+    private int idCampana;
+    private String nombre;
+    private Date fechaInicio;
+    private Date fechaFin;
+    private String estado;
+    
+    public CampanaResumen() {
+    }
+    
+    public int getIdCampana() { return idCampana; }
+    public String getNombre() { return nombre; }
+    public Date getFechaInicio() { return fechaInicio; }
+    public Date getFechaFin() { return fechaFin; }
+    public String getEstado() { return estado; }
+    
+    public void setIdCampana(int idCampana) { this.idCampana = idCampana; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+    public void setFechaInicio(Date fechaInicio) { this.fechaInicio = fechaInicio; }
+    public void setFechaFin(Date fechaFin) { this.fechaFin = fechaFin; }
+    public void setEstado(String estado) { this.estado = estado; }
+    
+    @Override
+    public String toString() {
+        return nombre;
+    }
+}
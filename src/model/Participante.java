@@ -15,6 +15,7 @@ public class Participante {
     private String direccion;
     private String telefono;
     private String email;
+    private Date fechaRegistro; // Asignada por la base de datos
     
     // Constructor
     public Participante() {
@@ -106,6 +107,14 @@ public class Participante {
         this.email = email;
     }
     
+    public Date getFechaRegistro() {
+        return fechaRegistro;
+    }
+    
+    public void setFechaRegistro(Date fechaRegistro) {
+        this.fechaRegistro = fechaRegistro;
+    }
+    
     // Alias methods to match controller/DAO naming conventions
     public int getIdParticipante() {
         return id;
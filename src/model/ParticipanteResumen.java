@@ -0,0 +1,30 @@
+package model;
+
+/**
+ * Compact view of a participant for the check-in desk: enough to confirm
+ * who the person is and register them, held in memory for every participant
+ */
+public class ParticipanteResumen {
+    private int idParticipante;
+    private String dni;
+    private String nombre;
+    private String apellido;
+    
+    public ParticipanteResumen() {
+    }
+    
+    public int getIdParticipante() { return idParticipante; }
+    public String getDni() { return dni; }
+    public String getNombre() { return nombre; }
+    public String getApellido() { return apellido; }
+    
+    public void setIdParticipante(int idParticipante) { this.idParticipante = idParticipante; }
+    public void setDni(String dni) { this.dni = dni; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+    public void setApellido(String apellido) { this.apellido = apellido; }
+    
+    @Override
+    public String toString() {
+        return dni + " - " + nombre + " " + apellido;
+    }
+}
@@ -12,6 +12,8 @@ public class Prediccion {
     private int participacionEstimada;
     private double nivelConfianza;
     private String notas;
+    private Date fechaCreacion; // Asignada por la base de datos
+    private String nombreCampana; // Solo lo cargan las consultas que unen Campana
     
     // Constructores
     public Prediccion() {
@@ -74,4 +76,20 @@ public class Prediccion {
     public void setNotas(String notas) {
         this.notas = notas;
     }
+
+    public Date getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(Date fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+
+    public String getNombreCampana() {
+        return nombreCampana;
+    }
+
+    public void setNombreCampana(String nombreCampana) {
+        this.nombreCampana = nombreCampana;
+    }
 } 
\ No newline at end of file
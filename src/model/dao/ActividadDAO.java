@@ -5,24 +5,69 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import model.Actividad;
+import model.ActividadResumen;
 import model.database.DatabaseConnection;
+import model.database.TransactionScope;
+import util.Logger;
 
 /**
  * Data Access Object for Actividad entity
  */
 public class ActividadDAO {
+    private static final Logger LOG = Logger.getLogger(ActividadDAO.class);
+    private static final RowMapper<Actividad> MAPPER = columns().build();
+    
+    private static final RowMapper<Actividad> WITH_CAMPANA_MAPPER = columns()
+        .column("nombreCampana", ResultSet::getString, Actividad::setNombreCampana)
+        .build();
+    
+    // c.nombre is aliased so it does not clash with a.nombre
+    private static final String SELECT_WITH_CAMPANA_NOMBRE =
+        "SELECT a.*, c.nombre AS nombreCampana FROM Actividad a " +
+        "INNER JOIN Campana c ON a.idCampana = c.idCampana";
+    
+    private static final RowMapper<ActividadResumen> RESUMEN_MAPPER = RowMapper.builder(ActividadResumen::new)
+        .intColumn("idActividad", ActividadResumen::setIdActividad)
+        .column("nombre", ResultSet::getString, ActividadResumen::setNombre)
+        .column("fecha", ResultSet::getDate, ActividadResumen::setFecha)
+        .column("estado", ResultSet::getString, ActividadResumen::setEstado)
+        .build();
     
     /**
-     * Insert a new activity into the database
+     * Column bindings shared by the Actividad mappers
+     */
+    private static RowMapper.Builder<Actividad> columns() {
+        return RowMapper.builder(Actividad::new)
+            .intColumn("idActividad", Actividad::setIdActividad)
+            .column("nombre", ResultSet::getString, Actividad::setNombre)
+            .column("descripcion", ResultSet::getString, Actividad::setDescripcion)
+            .column("fecha", ResultSet::getDate, Actividad::setFecha)
+            .column("hora", ResultSet::getString, Actividad::setHora)
+            .intColumn("idCampana", Actividad::setIdCampana)
+            .intColumn("capacidad", Actividad::setCupoMaximo)
+            .column("estado", ResultSet::getString, Actividad::setEstado);
+    }
+    
+    /**
+     * Insert a new activity and fill in the values the database assigned:
+     * idActividad, participantesRegistrados.
      * @param actividad The activity to insert
-     * @return true if successful, false otherwise
+     * @return The same activity, now persisted; null if the insert failed
      */
-    public boolean insert(Actividad actividad) {
-        String sql = "INSERT INTO Actividad (nombre, descripcion, fecha, hora, idCampana, capacidad, estado) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    public Actividad create(Actividad actividad) {
+        String sql = DatabaseConnection.getDialect().insertReturning("Actividad",
+            "nombre, descripcion, fecha, hora, idCampana, capacidad, estado", "?, ?, ?, ?, ?, ?, ?",
+            "idActividad", "participantesRegistrados");
         Connection conn = null;
         PreparedStatement stmt = null;
+        ResultSet rs = null;
         
         try {
             conn = DatabaseConnection.getConnection();
@@ -35,19 +80,34 @@ public class ActividadDAO {
             stmt.setInt(6, actividad.getCupoMaximo());
             stmt.setString(7, actividad.getEstado());
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            rs = stmt.executeQuery();
+            if (rs.next()) {
+                actividad.setIdActividad(rs.getInt(1));
+                actividad.setParticipantesRegistrados(rs.getInt(2));
+                return actividad;
+            }
         } catch (SQLException e) {
-            System.err.println("Error inserting activity: " + e.getMessage());
-            return false;
+            LOG.error("Error inserting activity: {}", e.getMessage());
+            return null;
         } finally {
             try {
+                if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
+        return null;
+    }
+    
+    /**
+     * Insert a new activity into the database
+     * @param actividad The activity to insert
+     * @return true if successful, false otherwise
+     */
+    public boolean insert(Actividad actividad) {
+        return create(actividad) != null;
     }
     
     /**
@@ -75,14 +135,14 @@ public class ActividadDAO {
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating activity: " + e.getMessage());
+            LOG.error("Error updating activity: {}", e.getMessage());
             return false;
         } finally {
             try {
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
     }
@@ -94,54 +154,33 @@ public class ActividadDAO {
      * @return true if successful, false otherwise
      */
     public boolean delete(int idActividad) {
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false); // Start transaction
+        // Joins the caller's transaction scope if there is one
+        try (TransactionScope tx = TransactionScope.begin()) {
+            Connection conn = DatabaseConnection.getConnection();
             
             // First, delete all RegistroParticipacion records associated with this activity
             String deleteParticipationsSQL = "DELETE FROM RegistroParticipacion WHERE idActividad = ?";
-            stmt = conn.prepareStatement(deleteParticipationsSQL);
-            stmt.setInt(1, idActividad);
-            stmt.executeUpdate();
-            stmt.close();
+            try (PreparedStatement stmt = conn.prepareStatement(deleteParticipationsSQL)) {
+                stmt.setInt(1, idActividad);
+                stmt.executeUpdate();
+            }
             
             // Then, delete the activity itself
             String deleteActivitySQL = "DELETE FROM Actividad WHERE idActividad = ?";
-            stmt = conn.prepareStatement(deleteActivitySQL);
-            stmt.setInt(1, idActividad);
-            
-            int rowsAffected = stmt.executeUpdate();
+            int rowsAffected;
+            try (PreparedStatement stmt = conn.prepareStatement(deleteActivitySQL)) {
+                stmt.setInt(1, idActividad);
+                rowsAffected = stmt.executeUpdate();
+            }
             
             if (rowsAffected > 0) {
-                conn.commit(); // Commit transaction
+                tx.commit(); // Commit transaction
                 return true;
-            } else {
-                conn.rollback(); // Rollback if no activity was deleted
-                return false;
             }
+            return false; // Rolled back when the scope closes
         } catch (SQLException e) {
-            try {
-                if (conn != null) {
-                    conn.rollback(); // Rollback transaction on error
-                }
-            } catch (SQLException rollbackEx) {
-                System.err.println("Error rolling back transaction: " + rollbackEx.getMessage());
-            }
-            System.err.println("Error deleting activity: " + e.getMessage());
+            LOG.error("Error deleting activity: {}", e.getMessage());
             return false;
-        } finally {
-            try {
-                if (stmt != null) stmt.close();
-                if (conn != null) {
-                    conn.setAutoCommit(true); // Reset auto-commit
-                    conn.close();
-                }
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
         }
     }
     
@@ -157,56 +196,138 @@ public class ActividadDAO {
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = DatabaseConnection.getReadConnection();
             stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idActividad);
             
             rs = stmt.executeQuery();
             if (rs.next()) {
-                return extractActividadFromResultSet(rs);
+                return MAPPER.map(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error finding activity by ID: " + e.getMessage());
+            LOG.error("Error finding activity by ID: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return null;
     }
     
     /**
-     * Get all activities from the database
+     * Find many activities by ID in as few queries as possible
+     * @param ids The IDs to look up
+     * @return The activities found, keyed by ID; IDs with no row are absent
+     */
+    public Map<Integer, Actividad> findByIds(Collection<Integer> ids) {
+        try {
+            return MultiGet.findByIds("Actividad", "idActividad", ids, MAPPER, Actividad::getIdActividad);
+        } catch (SQLException e) {
+            LOG.error("Error finding activities by IDs: {}", e.getMessage());
+            return new HashMap<>();
+        }
+    }
+    
+    /**
+     * Get all activities from the database.
+     * Holds the whole table in memory; for large tables use
+     * {@link #streamAll()} or {@link #forEachAll(Consumer)}.
      * @return A list of all activities
      */
     public List<Actividad> findAll() {
         List<Actividad> actividades = new ArrayList<>();
-        String sql = "SELECT * FROM Actividad";
+        forEachAll(actividades::add);
+        return actividades;
+    }
+    
+    /**
+     * Get all activities, each with the name of its campaign, in one query
+     * @return A list of all activities
+     */
+    public List<Actividad> findAllWithCampanaNombre() {
+        List<Actividad> actividades = new ArrayList<>();
         Connection conn = null;
         PreparedStatement stmt = null;
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
-            stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(SELECT_WITH_CAMPANA_NOMBRE + " ORDER BY a.fecha, a.idActividad");
             rs = stmt.executeQuery();
             
-            while (rs.next()) {
-                actividades.add(extractActividadFromResultSet(rs));
+            WITH_CAMPANA_MAPPER.mapAll(rs, actividades);
+        } catch (SQLException e) {
+            LOG.error("Error finding activities with campaign names: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
             }
+        }
+        return actividades;
+    }
+    
+    /**
+     * Stream all activities without loading the table into memory.
+     * The stream keeps a database connection until it is closed:
+     * <pre>
+     *     try (Stream&lt;Actividad&gt; actividades = dao.streamAll()) { ... }
+     * </pre>
+     * @return A lazily read stream of activities
+     * @throws SQLException if the query cannot be started
+     */
+    public Stream<Actividad> streamAll() throws SQLException {
+        return StreamingQuery.stream("SELECT * FROM Actividad", MAPPER);
+    }
+    
+    /**
+     * Pass every activity to a consumer as rows arrive from the database
+     * @param consumer Receives each activity
+     * @return The number of activities read, or -1 if the query failed
+     */
+    public int forEachAll(Consumer<? super Actividad> consumer) {
+        try {
+            return StreamingQuery.forEach("SELECT * FROM Actividad", MAPPER, consumer);
         } catch (SQLException e) {
-            System.err.println("Error finding all activities: " + e.getMessage());
+            LOG.error("Error reading all activities: {}", e.getMessage());
+            return -1;
+        }
+    }
+    
+    /**
+     * Get the id, name, date and state of every activity, for pickers and lists.
+     * Skips the description text, so the scan stays on idx_Actividad_Fecha.
+     * @return The activity summaries, in display order
+     */
+    public List<ActividadResumen> findAllResumen() {
+        List<ActividadResumen> actividades = new ArrayList<>();
+        String sql = "SELECT idActividad, nombre, fecha, estado FROM Actividad ORDER BY fecha, idActividad";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
+            rs = stmt.executeQuery();
+            
+            RESUMEN_MAPPER.mapAll(rs, actividades);
+        } catch (SQLException e) {
+            LOG.error("Error finding activity summaries: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return actividades;
@@ -225,23 +346,21 @@ public class ActividadDAO {
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = DatabaseConnection.getReadConnection();
             stmt = conn.prepareStatement(sql);
             stmt.setString(1, "%" + nombre + "%");
             
             rs = stmt.executeQuery();
-            while (rs.next()) {
-                actividades.add(extractActividadFromResultSet(rs));
-            }
+            MAPPER.mapAll(rs, actividades);
         } catch (SQLException e) {
-            System.err.println("Error searching activities by name: " + e.getMessage());
+            LOG.error("Error searching activities by name: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return actividades;
@@ -261,24 +380,22 @@ public class ActividadDAO {
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = DatabaseConnection.getReadConnection();
             stmt = conn.prepareStatement(sql);
             stmt.setDate(1, new java.sql.Date(fechaInicio.getTime()));
             stmt.setDate(2, new java.sql.Date(fechaFin.getTime()));
             
             rs = stmt.executeQuery();
-            while (rs.next()) {
-                actividades.add(extractActividadFromResultSet(rs));
-            }
+            MAPPER.mapAll(rs, actividades);
         } catch (SQLException e) {
-            System.err.println("Error finding activities by date range: " + e.getMessage());
+            LOG.error("Error finding activities by date range: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return actividades;
@@ -297,23 +414,21 @@ public class ActividadDAO {
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = DatabaseConnection.getReadConnection();
             stmt = conn.prepareStatement(sql);
             stmt.setString(1, estado);
             
             rs = stmt.executeQuery();
-            while (rs.next()) {
-                actividades.add(extractActividadFromResultSet(rs));
-            }
+            MAPPER.mapAll(rs, actividades);
         } catch (SQLException e) {
-            System.err.println("Error finding activities by status: " + e.getMessage());
+            LOG.error("Error finding activities by status: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return actividades;
@@ -332,44 +447,86 @@ public class ActividadDAO {
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = DatabaseConnection.getReadConnection();
             stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idCampana);
             
             rs = stmt.executeQuery();
-            while (rs.next()) {
-                actividades.add(extractActividadFromResultSet(rs));
-            }
+            MAPPER.mapAll(rs, actividades);
         } catch (SQLException e) {
-            System.err.println("Error finding activities by campaign: " + e.getMessage());
+            LOG.error("Error finding activities by campaign: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return actividades;
     }
     
     /**
-     * Extract an activity from a result set
-     * @param rs The result set to extract from
-     * @return The extracted activity
-     * @throws SQLException If an error occurs
+     * Get one page of activities ordered by date.
+     * Seeks past the previous page on the (fecha, idActividad) index,
+     * so every page costs the same as the first.
+     * @param after The last activity of the previous page, or null for the first page
+     * @param pageSize Maximum number of activities on the page
+     * @return The page of activities
+     */
+    public Page<Actividad> findPageByFecha(Actividad after, int pageSize) {
+        return findPageByFecha("SELECT a.* FROM Actividad a", MAPPER, after, pageSize);
+    }
+    
+    /**
+     * Get one page of activities ordered by date, each with the name of its
+     * campaign, so a list screen needs no lookup per row
+     * @param after The last activity of the previous page, or null for the first page
+     * @param pageSize Maximum number of activities on the page
+     * @return The page of activities
      */
-    private Actividad extractActividadFromResultSet(ResultSet rs) throws SQLException {
-        Actividad actividad = new Actividad();
-        actividad.setIdActividad(rs.getInt("idActividad"));
-        actividad.setNombre(rs.getString("nombre"));
-        actividad.setDescripcion(rs.getString("descripcion"));
-        actividad.setFecha(rs.getDate("fecha"));
-        actividad.setHora(rs.getString("hora"));
-        actividad.setIdCampana(rs.getInt("idCampana"));
-        actividad.setCupoMaximo(rs.getInt("capacidad"));
-        actividad.setEstado(rs.getString("estado"));
-        return actividad;
+    public Page<Actividad> findPageByFechaWithCampanaNombre(Actividad after, int pageSize) {
+        return findPageByFecha(SELECT_WITH_CAMPANA_NOMBRE, WITH_CAMPANA_MAPPER, after, pageSize);
+    }
+    
+    private Page<Actividad> findPageByFecha(String select, RowMapper<Actividad> mapper, Actividad after, int pageSize) {
+        List<Actividad> actividades = new ArrayList<>();
+        String sql = after == null
+            ? select + " ORDER BY a.fecha, a.idActividad OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY"
+            : select + " WHERE a.fecha >= ? AND (a.fecha > ? OR a.idActividad > ?) " +
+              "ORDER BY a.fecha, a.idActividad OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
+            int index = 1;
+            if (after != null) {
+                java.sql.Date fecha = new java.sql.Date(after.getFecha().getTime());
+                stmt.setDate(index++, fecha);
+                stmt.setDate(index++, fecha);
+                stmt.setInt(index++, after.getIdActividad());
+            }
+            stmt.setInt(index, pageSize + 1); // One extra row tells whether another page follows
+            
+            rs = stmt.executeQuery();
+            mapper.mapAll(rs, actividades);
+            return Page.of(actividades, pageSize);
+        } catch (SQLException e) {
+            LOG.error("Error finding page of activities: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
+        }
+        return Page.empty();
     }
+    
 } 
\ No newline at end of file
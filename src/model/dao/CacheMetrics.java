@@ -0,0 +1,87 @@
+package model.dao;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one or more {@link ReadThroughCache} instances.
+ * A hit ratio that stays low while expirations are high means the TTL is
+ * too short; one that stays low while evictions are high means the
+ * maximum size is too small for the working set.
+ */
+public class CacheMetrics {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    void recordExpiration() {
+        expirations.increment();
+    }
+
+    void recordInvalidation() {
+        invalidations.increment();
+    }
+
+    /**
+     * @return Number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Number of lookups that went to the database
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Number of entries dropped to make room in a full cache
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Number of entries dropped because they outlived the TTL
+     */
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    /**
+     * @return Number of explicit invalidations after writes
+     */
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    /**
+     * @return Fraction of lookups answered from the cache (0-1)
+     */
+    public double getHitRatio() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheMetrics{hits=%d, misses=%d, hitRatio=%.2f, evictions=%d, expirations=%d, invalidations=%d}",
+            getHits(), getMisses(), getHitRatio(), getEvictions(), getExpirations(), getInvalidations());
+    }
+}
@@ -0,0 +1,140 @@
+package model.dao;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import model.Campana;
+import model.CampanaResumen;
+import model.database.ChangeNotifier;
+import model.database.DatabaseConfig;
+import model.database.DatabaseConnection;
+import util.Logger;
+
+/**
+ * Read-through cache in front of {@link CampanaDAO}.
+ * Campaigns change rarely but are read by every prediction and every
+ * campaign picker. Size and TTL come from {@code db.cache.campana.maxSize}
+ * and {@code db.cache.campana.ttlSeconds}; writes through
+ * {@code CampanaController} call {@link #invalidate(int)}, and writes by
+ * other clients invalidate through {@link ChangeNotifier}.
+ * Campaigns and lists returned from here are shared: read them, do not
+ * modify them. Code that edits a campaign reads it from CampanaDAO.
+ */
+public final class CampanaCache {
+    private static final Logger LOG = Logger.getLogger(CampanaCache.class);
+    private static final String NAME = "campana";
+    private static final Boolean ALL = Boolean.TRUE;
+
+    private static volatile CampanaCache instance;
+
+    private final CacheMetrics metrics = new CacheMetrics();
+    private final ReadThroughCache<Integer, Campana> byId;
+    private final ReadThroughCache<Integer, List<Campana>> byResponsable;
+    private final ReadThroughCache<Boolean, List<CampanaResumen>> resumen;
+
+    private CampanaCache(CampanaDAO dao) {
+        int maxSize = 1000;
+        long ttlMillis = 300_000L;
+        try {
+            DatabaseConfig config = DatabaseConnection.getConfig();
+            maxSize = Math.max(1, config.getInt("db.cache." + NAME + ".maxSize", 1000));
+            // 0 disables the cache
+            ttlMillis = Math.max(0, config.getInt("db.cache." + NAME + ".ttlSeconds", 300)) * 1000L;
+        } catch (SQLException e) {
+            LOG.warn("Campaign cache settings unavailable, using defaults: {}", e.getMessage());
+        }
+        byId = new ReadThroughCache<>(dao::findById, maxSize, ttlMillis, metrics);
+        // Empty lists are not cached: the DAO also returns one when the query fails
+        byResponsable = new ReadThroughCache<>(id -> unmodifiableOrNull(dao.findByResponsable(id)),
+            maxSize, ttlMillis, metrics);
+        resumen = new ReadThroughCache<>(all -> unmodifiableOrNull(dao.findAllResumen()), 1, ttlMillis, metrics);
+        ChangeNotifier.addListener("Campana", (table, changes) -> {
+            if (changes.isResync()) {
+                invalidateAll();
+                return;
+            }
+            for (int idCampana : changes.getIds()) {
+                byId.invalidate(idCampana);
+            }
+            byResponsable.invalidateAll();
+            resumen.invalidateAll();
+        });
+    }
+
+    /**
+     * @return The cache shared by all controllers
+     */
+    public static CampanaCache getInstance() {
+        CampanaCache cache = instance;
+        if (cache == null) {
+            synchronized (CampanaCache.class) {
+                cache = instance;
+                if (cache == null) {
+                    cache = new CampanaCache(new CampanaDAO());
+                    instance = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Get a campaign by ID
+     * @param idCampana The ID of the campaign
+     * @return The campaign, or null if not found
+     */
+    public Campana findById(int idCampana) {
+        return byId.get(idCampana);
+    }
+
+    /**
+     * Get the campaigns of a responsible user
+     * @param idResponsable The ID of the responsible user
+     * @return The campaigns, possibly empty; the list cannot be modified
+     */
+    public List<Campana> findByResponsable(int idResponsable) {
+        List<Campana> campanas = byResponsable.get(idResponsable);
+        return campanas != null ? campanas : Collections.emptyList();
+    }
+
+    /**
+     * Get the summary of every campaign, for pickers
+     * @return The campaign summaries; the list cannot be modified
+     */
+    public List<CampanaResumen> findAllResumen() {
+        List<CampanaResumen> campanas = resumen.get(ALL);
+        return campanas != null ? campanas : Collections.emptyList();
+    }
+
+    /**
+     * Forgets a campaign after it was inserted, updated or deleted. The
+     * per-responsible lists and the summary list are dropped as well, since
+     * the change may move the campaign between them or rename it.
+     * @param idCampana The ID of the campaign written
+     */
+    public void invalidate(int idCampana) {
+        byId.invalidate(idCampana);
+        byResponsable.invalidateAll();
+        resumen.invalidateAll();
+    }
+
+    /**
+     * Forgets every campaign, e.g. after a bulk change made outside the DAO
+     */
+    public void invalidateAll() {
+        byId.invalidateAll();
+        byResponsable.invalidateAll();
+        resumen.invalidateAll();
+    }
+
+    /**
+     * @return Hit, miss and eviction counters of this cache
+     */
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    private static <T> List<T> unmodifiableOrNull(List<T> list) {
+        return list.isEmpty() ? null : Collections.unmodifiableList(list);
+    }
+}
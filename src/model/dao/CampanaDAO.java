@@ -5,41 +5,91 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import model.Campana;
+import model.CampanaResumen;
 import model.database.DatabaseConnection;
+import util.Logger;
 
 /**
  * Data Access Object for Campana entity
  */
 public class CampanaDAO {
-    private Connection conn;
+    private static final Logger LOG = Logger.getLogger(CampanaDAO.class);
+    private static final RowMapper<Campana> MAPPER = RowMapper.builder(Campana::new)
+        .intColumn("idCampana", Campana::setIdCampana)
+        .column("nombre", ResultSet::getString, Campana::setNombre)
+        .column("descripcion", ResultSet::getString, Campana::setDescripcion)
+        .column("fechaInicio", ResultSet::getDate, Campana::setFechaInicio)
+        .column("fechaFin", ResultSet::getDate, Campana::setFechaFin)
+        .intColumn("idResponsable", Campana::setIdResponsable)
+        .column("estado", ResultSet::getString, Campana::setEstado)
+        .column("fechaCreacion", ResultSet::getTimestamp, Campana::setFechaCreacion)
+        .build();
     
-    public CampanaDAO() throws SQLException {
-        this.conn = DatabaseConnection.getConnection();
-    }
+    private static final RowMapper<CampanaResumen> RESUMEN_MAPPER = RowMapper.builder(CampanaResumen::new)
+        .intColumn("idCampana", CampanaResumen::setIdCampana)
+        .column("nombre", ResultSet::getString, CampanaResumen::setNombre)
+        .column("fechaInicio", ResultSet::getDate, CampanaResumen::setFechaInicio)
+        .column("fechaFin", ResultSet::getDate, CampanaResumen::setFechaFin)
+        .column("estado", ResultSet::getString, CampanaResumen::setEstado)
+        .build();
     
     /**
-     * Insert a new campaign into the database
+     * Insert a new campaign and fill in the values the database assigned:
+     * idCampana, estado, fechaCreacion.
      * @param campana The campaign to insert
-     * @return true if successful, false otherwise
+     * @return The same campaign, now persisted; null if the insert failed
      */
-    public boolean insert(Campana campana) {
-        String sql = "INSERT INTO Campana (nombre, descripcion, fechaInicio, fechaFin, idResponsable) VALUES (?, ?, ?, ?, ?)";
+    public Campana create(Campana campana) {
+        String sql = DatabaseConnection.getDialect().insertReturning("Campana",
+            "nombre, descripcion, fechaInicio, fechaFin, idResponsable", "?, ?, ?, ?, ?",
+            "idCampana", "estado", "fechaCreacion");
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setString(1, campana.getNombre());
             stmt.setString(2, campana.getDescripcion());
             stmt.setDate(3, new java.sql.Date(campana.getFechaInicio().getTime()));
             stmt.setDate(4, new java.sql.Date(campana.getFechaFin().getTime()));
             stmt.setInt(5, campana.getIdResponsable());
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            rs = stmt.executeQuery();
+            if (rs.next()) {
+                campana.setIdCampana(rs.getInt(1));
+                campana.setEstado(rs.getString(2));
+                campana.setFechaCreacion(rs.getTimestamp(3));
+                return campana;
+            }
         } catch (SQLException e) {
-            System.err.println("Error inserting campaign: " + e.getMessage());
-            return false;
+            LOG.error("Error inserting campaign: {}", e.getMessage());
+            return null;
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
+        return null;
+    }
+    
+    /**
+     * Insert a new campaign into the database
+     * @param campana The campaign to insert
+     * @return true if successful, false otherwise
+     */
+    public boolean insert(Campana campana) {
+        return create(campana) != null;
     }
     
     /**
@@ -49,8 +99,12 @@ public class CampanaDAO {
      */
     public boolean update(Campana campana) {
         String sql = "UPDATE Campana SET nombre = ?, descripcion = ?, fechaInicio = ?, fechaFin = ?, idResponsable = ? WHERE idCampana = ?";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setString(1, campana.getNombre());
             stmt.setString(2, campana.getDescripcion());
             stmt.setDate(3, new java.sql.Date(campana.getFechaInicio().getTime()));
@@ -61,8 +115,15 @@ public class CampanaDAO {
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating campaign: " + e.getMessage());
+            LOG.error("Error updating campaign: {}", e.getMessage());
             return false;
+        } finally {
+            try {
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
     }
     
@@ -73,15 +134,26 @@ public class CampanaDAO {
      */
     public boolean delete(int idCampana) {
         String sql = "DELETE FROM Campana WHERE idCampana = ?";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idCampana);
             
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            System.err.println("Error deleting campaign: " + e.getMessage());
+            LOG.error("Error deleting campaign: {}", e.getMessage());
             return false;
+        } finally {
+            try {
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
     }
     
@@ -92,20 +164,47 @@ public class CampanaDAO {
      */
     public Campana findById(int idCampana) {
         String sql = "SELECT * FROM Campana WHERE idCampana = ?";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idCampana);
             
-            ResultSet rs = stmt.executeQuery();
+            rs = stmt.executeQuery();
             if (rs.next()) {
-                return extractCampanaFromResultSet(rs);
+                return MAPPER.map(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error finding campaign by ID: " + e.getMessage());
+            LOG.error("Error finding campaign by ID: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
         return null;
     }
     
+    /**
+     * Find many campaigns by ID in as few queries as possible
+     * @param ids The IDs to look up
+     * @return The campaigns found, keyed by ID; IDs with no row are absent
+     */
+    public Map<Integer, Campana> findByIds(Collection<Integer> ids) {
+        try {
+            return MultiGet.findByIds("Campana", "idCampana", ids, MAPPER, Campana::getIdCampana);
+        } catch (SQLException e) {
+            LOG.error("Error finding campaigns by IDs: {}", e.getMessage());
+            return new HashMap<>();
+        }
+    }
+    
     /**
      * Get all campaigns from the database
      * @return A list of all campaigns
@@ -113,15 +212,58 @@ public class CampanaDAO {
     public List<Campana> findAll() {
         List<Campana> campanas = new ArrayList<>();
         String sql = "SELECT * FROM Campana";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
+            rs = stmt.executeQuery();
             
-            while (rs.next()) {
-                campanas.add(extractCampanaFromResultSet(rs));
+            MAPPER.mapAll(rs, campanas);
+        } catch (SQLException e) {
+            LOG.error("Error finding all campaigns: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
             }
+        }
+        return campanas;
+    }
+    
+    /**
+     * Get the id, name, dates and state of every campaign, for pickers and lists.
+     * Skips the description text, so the scan stays on idx_Campana_Nombre.
+     * @return The campaign summaries, in display order
+     */
+    public List<CampanaResumen> findAllResumen() {
+        List<CampanaResumen> campanas = new ArrayList<>();
+        String sql = "SELECT idCampana, nombre, fechaInicio, fechaFin, estado FROM Campana ORDER BY nombre";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
+            rs = stmt.executeQuery();
+            
+            RESUMEN_MAPPER.mapAll(rs, campanas);
         } catch (SQLException e) {
-            System.err.println("Error finding all campaigns: " + e.getMessage());
+            LOG.error("Error finding campaign summaries: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
         return campanas;
     }
@@ -134,34 +276,29 @@ public class CampanaDAO {
     public List<Campana> findByResponsable(int idResponsable) {
         List<Campana> campanas = new ArrayList<>();
         String sql = "SELECT * FROM Campana WHERE idResponsable = ?";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idResponsable);
-            ResultSet rs = stmt.executeQuery();
+            rs = stmt.executeQuery();
             
-            while (rs.next()) {
-                campanas.add(extractCampanaFromResultSet(rs));
-            }
+            MAPPER.mapAll(rs, campanas);
         } catch (SQLException e) {
-            System.err.println("Error finding campaigns by responsible: " + e.getMessage());
+            LOG.error("Error finding campaigns by responsible: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
         return campanas;
     }
     
-    /**
-     * Extract a campaign from a result set
-     * @param rs The result set to extract from
-     * @return The extracted campaign
-     * @throws SQLException If an error occurs
-     */
-    private Campana extractCampanaFromResultSet(ResultSet rs) throws SQLException {
-        Campana campana = new Campana();
-        campana.setIdCampana(rs.getInt("idCampana"));
-        campana.setNombre(rs.getString("nombre"));
-        campana.setDescripcion(rs.getString("descripcion"));
-        campana.setFechaInicio(rs.getDate("fechaInicio"));
-        campana.setFechaFin(rs.getDate("fechaFin"));
-        campana.setIdResponsable(rs.getInt("idResponsable"));
-        return campana;
-    }
 } 
\ No newline at end of file
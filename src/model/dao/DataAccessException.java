@@ -0,0 +1,24 @@
+package model.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Unchecked wrapper for a database error raised where a checked exception
+ * cannot be thrown, such as while a {@link java.util.stream.Stream} of rows
+ * is being consumed
+ */
+public class DataAccessException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param cause The database error
+     */
+    public DataAccessException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
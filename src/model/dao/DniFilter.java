@@ -0,0 +1,220 @@
+package model.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import model.database.ChangeNotifier;
+import model.database.DatabaseConnection;
+import util.Logger;
+
+/**
+ * Negative lookup cache for the DNI columns of Participante and Usuario.
+ * A Bloom filter over every known DNI answers "definitely not present"
+ * for typos and people not registered yet without a query; any other
+ * answer means the DAO must ask the database.
+ * <p>
+ * A negative answer is only trusted while DNIs written by other clients
+ * are guaranteed to reach the filter, that is while {@link ChangeNotifier}
+ * is tracking the table: the filter is built by one scan and then kept
+ * current from the change notifications, reading the DNIs of inserted and
+ * updated rows in one batched query per poll. On the embedded database,
+ * without change tracking, or while notifications lag, every DNI is
+ * reported as possibly present and no scan is made. DNIs of other clients
+ * can be missed for about one poll interval; the unique constraints on the
+ * DNI columns still reject duplicates.
+ * <p>
+ * The DAOs {@link #add} every DNI they insert or change before the write
+ * commits, so rows written by this application are never reported
+ * missing. Deleted DNIs stay in the filter, which only costs a query, until
+ * it is rebuilt because its inserts outgrew its sizing or after a resync.
+ * Every {@code db.dniFilter.rebuildMinutes} a missing or full filter is
+ * rebuilt.
+ */
+public final class DniFilter {
+    private static final Logger LOG = Logger.getLogger(DniFilter.class);
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private static final DniFilter PARTICIPANTES = new DniFilter("Participante",
+        consumer -> new ParticipanteDAO().forEachDni(consumer),
+        ids -> new ParticipanteDAO().findDnisByIds(ids));
+    private static final DniFilter USUARIOS = new DniFilter("Usuario",
+        consumer -> new UsuarioDAO().forEachDni(consumer),
+        ids -> new UsuarioDAO().findDnisByIds(ids));
+
+    @FunctionalInterface
+    interface DniSource {
+        int forEach(Consumer<String> consumer) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface DniLoader {
+        Collection<String> dnisOf(Collection<Integer> ids) throws SQLException;
+    }
+
+    private final String table;
+    private final DniSource source;
+    private final DniLoader loader;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    // DNIs added since the last rebuild started. A rebuild may not see rows
+    // that are still uncommitted, so they are replayed into the new filter.
+    private final Queue<String> recentlyAdded = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger addedSinceBuild = new AtomicInteger();
+    // Only set to a filter built while the table was tracked
+    private volatile BloomFilter filter;
+    private volatile int headroom;
+
+    private DniFilter(String table, DniSource source, DniLoader loader) {
+        this.table = table;
+        this.source = source;
+        this.loader = loader;
+    }
+
+    /**
+     * @return The filter over Participante.dni
+     */
+    public static DniFilter participantes() {
+        return PARTICIPANTES;
+    }
+
+    /**
+     * @return The filter over Usuario.dni
+     */
+    public static DniFilter usuarios() {
+        return USUARIOS;
+    }
+
+    /**
+     * Checks whether a DNI may exist. Starts following the table on first use.
+     * @param dni The DNI
+     * @return false only if the DNI is certainly not in the table
+     */
+    public boolean mightContain(String dni) {
+        if (started.compareAndSet(false, true)) {
+            ChangeNotifier.addListener(table, this::tableChanged);
+            DatabaseConnection.getAsyncExecutor().execute(this::checkAndReschedule);
+        }
+        BloomFilter current = filter;
+        return dni == null || current == null || !ChangeNotifier.isTracking(table)
+            || current.mightContain(key(dni));
+    }
+
+    /**
+     * Records a DNI that was just inserted or set by an update
+     * @param dni The DNI written
+     */
+    public void add(String dni) {
+        if (dni == null) {
+            return;
+        }
+        String key = key(dni);
+        BloomFilter current = filter;
+        if (current == null && !ChangeNotifier.isTracking(table)) {
+            return; // No filter will be built until the table is tracked; its scan sees committed rows
+        }
+        recentlyAdded.add(key);
+        if (current != null) {
+            current.put(key);
+            if (addedSinceBuild.incrementAndGet() > headroom) {
+                queueRebuild(); // Past its sizing the false positive rate climbs
+            }
+        }
+    }
+
+    private void tableChanged(String changedTable, ChangeNotifier.ChangeSet changes) {
+        if (changes.isResync()) {
+            filter = null; // Changes were lost
+            queueRebuild();
+            return;
+        }
+        List<Integer> written = new ArrayList<>(changes.size());
+        for (int id : changes.getIds()) {
+            if (changes.getOperation(id) != ChangeNotifier.Operation.DELETE) {
+                written.add(id);
+            }
+        }
+        if (written.isEmpty()) {
+            return;
+        }
+        try {
+            loader.dnisOf(written).forEach(this::add);
+        } catch (SQLException e) {
+            LOG.warn("DNI filter for {} dropped, changed DNIs not read: {}", table, e.getMessage());
+            filter = null;
+            queueRebuild();
+        }
+    }
+
+    private void checkAndReschedule() {
+        long delayMinutes = 2;
+        try {
+            delayMinutes = Math.max(1, DatabaseConnection.getConfig().getInt("db.dniFilter.rebuildMinutes", 2));
+            if (filter == null) {
+                rebuildIfTracked();
+            }
+        } catch (SQLException | RuntimeException e) {
+            LOG.warn("DNI filter for {} not rebuilt, retrying in {} min: {}", table, delayMinutes, e.getMessage());
+        } finally {
+            DatabaseConnection.getAsyncExecutor().schedule(this::checkAndReschedule, delayMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    private void queueRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            DatabaseConnection.getAsyncExecutor().execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuildIfTracked();
+                } catch (SQLException | RuntimeException e) {
+                    LOG.warn("DNI filter for {} not rebuilt: {}", table, e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds a new filter from a full scan, but only while the table is
+     * tracked: changes committed after the scan starts then arrive as
+     * notifications, so the filter cannot miss them
+     */
+    private synchronized void rebuildIfTracked() throws SQLException {
+        if (!ChangeNotifier.isTracking(table)) {
+            filter = null;
+            return;
+        }
+        List<String> addedBefore = new ArrayList<>();
+        for (String key; (key = recentlyAdded.poll()) != null; ) {
+            addedBefore.add(key);
+        }
+        List<String> keys = new ArrayList<>();
+        try {
+            source.forEach(dni -> keys.add(key(dni)));
+        } catch (SQLException | RuntimeException e) {
+            recentlyAdded.addAll(addedBefore); // Keep them for the next attempt
+            throw e;
+        }
+        // Headroom for the inserts made before the next rebuild
+        int extra = keys.size() / 2 + 1000;
+        BloomFilter fresh = new BloomFilter(keys.size() + extra, FALSE_POSITIVE_RATE);
+        keys.forEach(fresh::put);
+        addedBefore.forEach(fresh::put);
+        headroom = extra;
+        addedSinceBuild.set(0);
+        filter = fresh;
+        // Adds that raced the swap went to the old filter; they stay queued for the next rebuild
+        recentlyAdded.forEach(fresh::put);
+        LOG.debug("DNI filter for {} rebuilt with {} keys", table, keys.size());
+    }
+
+    private static String key(String dni) {
+        return dni.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,279 @@
+package model.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import model.ParticipanteResumen;
+import model.database.ChangeNotifier;
+import model.database.DatabaseBootstrap;
+import model.database.DatabaseConfig;
+import model.database.DatabaseConnection;
+import util.Logger;
+
+/**
+ * Every participant's DNI, held in memory, mapped to a short summary, so
+ * the check-in desk resolves a DNI without a database round trip.
+ * <p>
+ * The index is loaded in the background once the database bootstrap has
+ * finished. After that it reads the participants whose ID is above the
+ * highest one seen every {@code db.dniIndex.refreshSeconds}. Every
+ * {@code db.dniIndex.fullReloadMinutes} it is rebuilt from scratch, which
+ * catches anything the change notifications missed. Edits made through
+ * ParticipanteController update the index at once; edits made by other
+ * clients arrive through {@link ChangeNotifier} within a poll interval.
+ * Participants changed while a full load is scanning are read again once
+ * the new index is in place, so the scan cannot bring back a stale row.
+ * <p>
+ * An ID committed out of order can be missed by a delta. A DNI that is
+ * not found here is therefore not proof that it does not exist, and
+ * callers fall back to the database.
+ */
+public final class DniIndex {
+    private static final Logger LOG = Logger.getLogger(DniIndex.class);
+    private static final DniIndex INSTANCE = new DniIndex(new ParticipanteDAO());
+
+    /**
+     * The index and its reverse, swapped together on a full load
+     */
+    private static final class Entries {
+        private final ConcurrentHashMap<String, ParticipanteResumen> byDni;
+        // idParticipante -> DNI key, so a removal does not scan byDni
+        private final ConcurrentHashMap<Integer, String> dniById;
+
+        Entries(int capacity) {
+            byDni = new ConcurrentHashMap<>(capacity);
+            dniById = new ConcurrentHashMap<>(capacity);
+        }
+
+        void put(ParticipanteResumen participante) {
+            String key = key(participante.getDni());
+            int id = participante.getIdParticipante();
+            ParticipanteResumen previous = byDni.put(key, participante);
+            if (previous != null && previous.getIdParticipante() != id) {
+                dniById.remove(previous.getIdParticipante(), key); // The DNI moved to another participant
+            }
+            String oldKey = dniById.put(id, key);
+            if (oldKey != null && !oldKey.equals(key)) {
+                removeKey(oldKey, id); // The participant's DNI changed
+            }
+        }
+
+        void remove(int idParticipante) {
+            String key = dniById.remove(idParticipante);
+            if (key != null) {
+                removeKey(key, idParticipante);
+            }
+        }
+
+        private void removeKey(String key, int idParticipante) {
+            byDni.computeIfPresent(key, (k, p) -> p.getIdParticipante() == idParticipante ? null : p);
+        }
+    }
+
+    private final ParticipanteDAO dao;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile Entries entries = new Entries(16);
+    private volatile boolean loaded;
+    private volatile boolean reloadRequested;
+    // Guards loading and changedDuringLoad
+    private final Object loadLock = new Object();
+    private boolean loading;
+    private final List<Integer> changedDuringLoad = new ArrayList<>();
+    // Written only by the refresh task
+    private int maxIdParticipante;
+    private long lastFullLoadNanos;
+
+    private DniIndex(ParticipanteDAO dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * @return The index shared by all desks
+     */
+    public static DniIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Schedules the initial load and the periodic refresh. Calling it again does nothing.
+     */
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        ChangeNotifier.addListener("Participante", this::participanteChanged);
+        DatabaseBootstrap.start().whenComplete((ignored, error) ->
+            DatabaseConnection.getAsyncExecutor().execute(this::refreshAndReschedule));
+    }
+
+    /**
+     * Looks a DNI up in memory only
+     * @param dni The DNI, in any case and with surrounding blanks
+     * @return The participant, or null if the DNI is not indexed (yet)
+     */
+    public ParticipanteResumen lookup(String dni) {
+        return dni == null ? null : entries.byDni.get(key(dni));
+    }
+
+    /**
+     * Adds or replaces a participant, e.g. after an edit or a database fallback
+     * @param participante The participant summary
+     */
+    public void put(ParticipanteResumen participante) {
+        entries.put(participante);
+    }
+
+    /**
+     * Removes a participant after it was deleted or its DNI changed
+     * @param idParticipante The ID of the participant
+     */
+    public void removeById(int idParticipante) {
+        entries.remove(idParticipante);
+    }
+
+    /**
+     * @return true once the first full load has completed
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return Number of participants indexed
+     */
+    public int size() {
+        return entries.byDni.size();
+    }
+
+    private void refreshAndReschedule() {
+        long delaySeconds = 30;
+        try {
+            DatabaseConfig config = DatabaseConnection.getConfig();
+            delaySeconds = Math.max(1, config.getInt("db.dniIndex.refreshSeconds", 30));
+            long fullReloadNanos = TimeUnit.MINUTES.toNanos(Math.max(1, config.getInt("db.dniIndex.fullReloadMinutes", 30)));
+            if (!loaded || reloadRequested || System.nanoTime() - lastFullLoadNanos > fullReloadNanos) {
+                reloadRequested = false;
+                loadAll();
+            } else {
+                loadDelta();
+            }
+        } catch (SQLException | RuntimeException e) {
+            LOG.warn("DNI index refresh failed, retrying in {}s: {}", delaySeconds, e.getMessage());
+        } finally {
+            DatabaseConnection.getAsyncExecutor().schedule(this::refreshAndReschedule, delaySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private void loadAll() throws SQLException {
+        long start = System.nanoTime();
+        Entries fresh = new Entries(Math.max(16, size()));
+        int[] maxId = { 0 };
+        synchronized (loadLock) {
+            loading = true;
+        }
+        try {
+            dao.forEachResumen(p -> {
+                fresh.put(p);
+                maxId[0] = Math.max(maxId[0], p.getIdParticipante());
+            });
+        } catch (SQLException | RuntimeException e) {
+            synchronized (loadLock) {
+                loading = false; // The changes went to the entries still in use
+                changedDuringLoad.clear();
+            }
+            throw e;
+        }
+        List<Integer> changedDuringScan;
+        synchronized (loadLock) {
+            // Changes applied during the scan went to the old entries; from
+            // here on they go to the new ones, and those recorded are read again
+            entries = fresh;
+            loading = false;
+            changedDuringScan = new ArrayList<>(changedDuringLoad);
+            changedDuringLoad.clear();
+        }
+        maxIdParticipante = maxId[0];
+        lastFullLoadNanos = System.nanoTime();
+        loaded = true;
+        LOG.info("DNI index loaded: {} participants in {}ms", fresh.byDni.size(),
+            TimeUnit.NANOSECONDS.toMillis(lastFullLoadNanos - start));
+        if (!changedDuringScan.isEmpty()) {
+            try {
+                reload(changedDuringScan);
+            } catch (SQLException e) {
+                LOG.warn("DNI index: participants changed during the load not read: {}", e.getMessage());
+                reloadRequested = true;
+            }
+        }
+    }
+
+    private void loadDelta() {
+        List<ParticipanteResumen> nuevos = dao.findResumenAfter(maxIdParticipante);
+        for (ParticipanteResumen p : nuevos) {
+            put(p);
+            maxIdParticipante = Math.max(maxIdParticipante, p.getIdParticipante());
+        }
+        if (!nuevos.isEmpty()) {
+            LOG.debug("DNI index: {} new participants", nuevos.size());
+        }
+    }
+
+    /**
+     * Applies the participants changed by any client since the last poll,
+     * reading the inserted and updated ones in one batched query
+     */
+    private void participanteChanged(String table, ChangeNotifier.ChangeSet changes) {
+        if (changes.isResync()) {
+            reloadRequested = true; // Picked up by the next refresh
+            return;
+        }
+        synchronized (loadLock) {
+            if (loading) {
+                changedDuringLoad.addAll(changes.getIds()); // Read again after the swap
+            }
+        }
+        List<Integer> changed = new ArrayList<>(changes.size());
+        for (int idParticipante : changes.getIds()) {
+            if (changes.getOperation(idParticipante) == ChangeNotifier.Operation.DELETE) {
+                removeById(idParticipante);
+            } else {
+                changed.add(idParticipante);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        try {
+            reload(changed);
+        } catch (SQLException e) {
+            LOG.warn("DNI index: changed participants not read, reloading: {}", e.getMessage());
+            reloadRequested = true;
+        }
+    }
+
+    /**
+     * Reads the given participants again and puts or removes each one.
+     * Synchronized so that of two overlapping reads the later one wins.
+     */
+    private synchronized void reload(Collection<Integer> ids) throws SQLException {
+        Map<Integer, ParticipanteResumen> found = dao.findResumenByIds(ids);
+        for (int idParticipante : ids) {
+            ParticipanteResumen participante = found.get(idParticipante);
+            if (participante == null) {
+                removeById(idParticipante); // Deleted again since the change was recorded
+            } else {
+                put(participante);
+            }
+        }
+    }
+
+    private static String key(String dni) {
+        return dni.trim().toUpperCase(Locale.ROOT);
+    }
+}
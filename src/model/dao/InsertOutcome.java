@@ -0,0 +1,15 @@
+package model.dao;
+
+/**
+ * Result of inserting one row of a batch
+ */
+public enum InsertOutcome {
+    /** The row was inserted */
+    INSERTED,
+    /** The row already exists (unique constraint) and was skipped */
+    DUPLICATE,
+    /** The row references a missing parent row and was skipped */
+    FOREIGN_KEY_VIOLATION,
+    /** The batch was rolled back; nothing was inserted */
+    FAILED
+}
@@ -0,0 +1,86 @@
+package model.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+import model.database.DatabaseConnection;
+
+/**
+ * Reads many rows by primary key in a few round trips.
+ * The ids are sent as {@code IN (?, ?, ...)} lists of at most
+ * {@link #MAX_CHUNK} parameters, well under the 2100 parameters SQL Server
+ * accepts per statement. Each list is padded up to a power of two by
+ * repeating its last id, so a table only ever sees a handful of distinct
+ * statements and their plans and prepared statements are reused.
+ */
+final class MultiGet {
+    static final int MAX_CHUNK = 256;
+
+    private MultiGet() {
+    }
+
+    /**
+     * Reads the rows whose key is in ids
+     * @param table The table to read
+     * @param keyColumn Its integer primary key
+     * @param ids The ids to read; nulls and repeats are ignored
+     * @param mapper Maps each row
+     * @param keyOf Gets the key of a mapped entity
+     * @return The entities by id; ids with no row are absent
+     * @throws SQLException if a query fails
+     */
+    static <T> Map<Integer, T> findByIds(String table, String keyColumn, Collection<Integer> ids,
+                                         RowMapper<T> mapper, ToIntFunction<T> keyOf) throws SQLException {
+        List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.removeIf(Objects::isNull);
+        Map<Integer, T> result = new HashMap<>();
+        if (distinct.isEmpty()) {
+            return result;
+        }
+
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            for (int from = 0; from < distinct.size(); from += MAX_CHUNK) {
+                List<Integer> chunk = distinct.subList(from, Math.min(from + MAX_CHUNK, distinct.size()));
+                int size = paddedSize(chunk.size());
+                String sql = "SELECT * FROM " + table + " WHERE " + keyColumn + " IN (" + placeholders(size) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < size; i++) {
+                        stmt.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        mapper.forEach(rs, entity -> result.put(keyOf.applyAsInt(entity), entity));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The smallest power of two not below n, capped at MAX_CHUNK
+     */
+    private static int paddedSize(int n) {
+        int size = 1;
+        while (size < n) {
+            size <<= 1;
+        }
+        return Math.min(size, MAX_CHUNK);
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package model.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list.
+ * The next page is requested by passing the last item of this one back to
+ * the DAO, which seeks past it on an index instead of skipping rows, so
+ * page N costs the same as page 1.
+ * @param <T> The entity type
+ */
+public final class Page<T> {
+    private final List<T> items;
+    private final boolean hasNext;
+
+    private Page(List<T> items, boolean hasNext) {
+        this.items = Collections.unmodifiableList(items);
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * Builds a page from a query that fetched one row more than the page size
+     * @param rows The rows read, at most pageSize + 1
+     * @param pageSize The requested page size
+     * @return The page; hasNext() is true when the extra row was present
+     */
+    static <T> Page<T> of(List<T> rows, int pageSize) {
+        if (rows.size() > pageSize) {
+            return new Page<>(new ArrayList<>(rows.subList(0, pageSize)), true);
+        }
+        return new Page<>(rows, false);
+    }
+
+    /**
+     * @return An empty last page, e.g. after a query error
+     */
+    static <T> Page<T> empty() {
+        return new Page<>(new ArrayList<>(), false);
+    }
+
+    /**
+     * @return The items of this page, in order
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return true if more items follow this page
+     */
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    /**
+     * @return The last item, to pass back when requesting the next page; null if the page is empty
+     */
+    public T getLast() {
+        return items.isEmpty() ? null : items.get(items.size() - 1);
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
@@ -5,24 +5,57 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import model.Participante;
+import model.ParticipanteResumen;
 import model.database.DatabaseConnection;
+import util.Logger;
 
 /**
  * Data Access Object for Participante entity
  */
 public class ParticipanteDAO {
+    private static final Logger LOG = Logger.getLogger(ParticipanteDAO.class);
+    static final RowMapper<Participante> MAPPER = RowMapper.builder(Participante::new)
+        .intColumn("idParticipante", Participante::setIdParticipante)
+        .column("nombre", ResultSet::getString, Participante::setNombre)
+        .column("apellido", ResultSet::getString, Participante::setApellido)
+        .column("dni", ResultSet::getString, Participante::setDni)
+        .intColumn("edad", Participante::setEdad)
+        .column("sexo", ResultSet::getString, Participante::setSexo)
+        .column("direccion", ResultSet::getString, Participante::setDireccion)
+        .column("telefono", ResultSet::getString, Participante::setTelefono)
+        .column("correo", ResultSet::getString, Participante::setCorreo)
+        .column("fechaRegistro", ResultSet::getTimestamp, Participante::setFechaRegistro)
+        .build();
+    private static final RowMapper<Participante> DNI_MAPPER = RowMapper.builder(Participante::new)
+        .column("dni", ResultSet::getString, Participante::setDni)
+        .build();
+    private static final RowMapper<ParticipanteResumen> RESUMEN_MAPPER = RowMapper.builder(ParticipanteResumen::new)
+        .intColumn("idParticipante", ParticipanteResumen::setIdParticipante)
+        .column("dni", ResultSet::getString, ParticipanteResumen::setDni)
+        .column("nombre", ResultSet::getString, ParticipanteResumen::setNombre)
+        .column("apellido", ResultSet::getString, ParticipanteResumen::setApellido)
+        .build();
     
     /**
-     * Insert a new participant into the database
+     * Insert a new participant and fill in the values the database assigned:
+     * idParticipante, fechaRegistro.
      * @param participante The participant to insert
-     * @return true if successful, false otherwise
+     * @return The same participant, now persisted; null if the insert failed
      */
-    public boolean insert(Participante participante) {
-        String sql = "INSERT INTO Participante (nombre, apellido, dni, edad, sexo, direccion, telefono, correo) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    public Participante create(Participante participante) {
+        String sql = DatabaseConnection.getDialect().insertReturning("Participante",
+            "nombre, apellido, dni, edad, sexo, direccion, telefono, correo", "?, ?, ?, ?, ?, ?, ?, ?",
+            "idParticipante", "fechaRegistro");
         Connection conn = null;
         PreparedStatement stmt = null;
+        ResultSet rs = null;
         
         try {
             conn = DatabaseConnection.getConnection();
@@ -36,19 +69,35 @@ public class ParticipanteDAO {
             stmt.setString(7, participante.getTelefono());
             stmt.setString(8, participante.getCorreo());
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            DniFilter.participantes().add(participante.getDni()); // Before the row can be seen
+            rs = stmt.executeQuery();
+            if (rs.next()) {
+                participante.setIdParticipante(rs.getInt(1));
+                participante.setFechaRegistro(rs.getTimestamp(2));
+                return participante;
+            }
         } catch (SQLException e) {
-            System.err.println("Error inserting participant: " + e.getMessage());
-            return false;
+            LOG.error("Error inserting participant: {}", e.getMessage());
+            return null;
         } finally {
             try {
+                if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
+        return null;
+    }
+    
+    /**
+     * Insert a new participant into the database
+     * @param participante The participant to insert
+     * @return true if successful, false otherwise
+     */
+    public boolean insert(Participante participante) {
+        return create(participante) != null;
     }
     
     /**
@@ -74,17 +123,18 @@ public class ParticipanteDAO {
             stmt.setString(8, participante.getCorreo());
             stmt.setInt(9, participante.getIdParticipante());
             
+            DniFilter.participantes().add(participante.getDni());
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating participant: " + e.getMessage());
+            LOG.error("Error updating participant: {}", e.getMessage());
             return false;
         } finally {
             try {
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
     }
@@ -107,14 +157,14 @@ public class ParticipanteDAO {
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            System.err.println("Error deleting participant: " + e.getMessage());
+            LOG.error("Error deleting participant: {}", e.getMessage());
             return false;
         } finally {
             try {
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
     }
@@ -131,34 +181,73 @@ public class ParticipanteDAO {
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = DatabaseConnection.getReadConnection();
             stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idParticipante);
             
             rs = stmt.executeQuery();
             if (rs.next()) {
-                return extractParticipanteFromResultSet(rs);
+                return MAPPER.map(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error finding participant by ID: " + e.getMessage());
+            LOG.error("Error finding participant by ID: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return null;
     }
     
+    /**
+     * Find many participants by ID in as few queries as possible
+     * @param ids The IDs to look up
+     * @return The participants found, keyed by ID; IDs with no row are absent
+     */
+    public Map<Integer, Participante> findByIds(Collection<Integer> ids) {
+        try {
+            return MultiGet.findByIds("Participante", "idParticipante", ids, MAPPER, Participante::getIdParticipante);
+        } catch (SQLException e) {
+            LOG.error("Error finding participants by IDs: {}", e.getMessage());
+            return new HashMap<>();
+        }
+    }
+    
+    /**
+     * Reads the summaries of the given participants, for the DNI index
+     * @param ids The IDs to look up
+     * @return The summaries found, keyed by ID; IDs with no row are absent
+     * @throws SQLException if a query fails
+     */
+    Map<Integer, ParticipanteResumen> findResumenByIds(Collection<Integer> ids) throws SQLException {
+        return MultiGet.findByIds("Participante", "idParticipante", ids, RESUMEN_MAPPER, ParticipanteResumen::getIdParticipante);
+    }
+    
+    /**
+     * Reads the DNIs of the given participants, for the DNI filter
+     * @param ids The IDs to look up
+     * @return The DNIs of the participants that exist
+     * @throws SQLException if a query fails
+     */
+    List<String> findDnisByIds(Collection<Integer> ids) throws SQLException {
+        List<String> dnis = new ArrayList<>();
+        findResumenByIds(ids).values().forEach(p -> dnis.add(p.getDni()));
+        return dnis;
+    }
+    
     /**
      * Find a participant by their DNI
      * @param dni The DNI of the participant to find
      * @return The participant if found, null otherwise
      */
     public Participante findByDni(String dni) {
+        if (!DniFilter.participantes().mightContain(dni)) {
+            return null; // Certainly not registered; no query needed
+        }
         String sql = "SELECT * FROM Participante WHERE dni = ?";
         Connection conn = null;
         PreparedStatement stmt = null;
@@ -171,50 +260,112 @@ public class ParticipanteDAO {
             
             rs = stmt.executeQuery();
             if (rs.next()) {
-                return extractParticipanteFromResultSet(rs);
+                return MAPPER.map(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error finding participant by DNI: " + e.getMessage());
+            LOG.error("Error finding participant by DNI: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return null;
     }
     
     /**
-     * Get all participants from the database
+     * Get all participants from the database.
+     * Holds the whole table in memory; for large tables use
+     * {@link #streamAll()} or {@link #forEachAll(Consumer)}.
      * @return A list of all participants
      */
     public List<Participante> findAll() {
         List<Participante> participantes = new ArrayList<>();
-        String sql = "SELECT * FROM Participante";
+        forEachAll(participantes::add);
+        return participantes;
+    }
+    
+    /**
+     * Stream all participants without loading the table into memory.
+     * The stream keeps a database connection until it is closed:
+     * <pre>
+     *     try (Stream&lt;Participante&gt; participantes = dao.streamAll()) { ... }
+     * </pre>
+     * @return A lazily read stream of participants
+     * @throws SQLException if the query cannot be started
+     */
+    public Stream<Participante> streamAll() throws SQLException {
+        return StreamingQuery.stream("SELECT * FROM Participante", MAPPER);
+    }
+    
+    /**
+     * Pass every participant to a consumer as rows arrive from the database
+     * @param consumer Receives each participant
+     * @return The number of participants read, or -1 if the query failed
+     */
+    public int forEachAll(Consumer<? super Participante> consumer) {
+        try {
+            return StreamingQuery.forEach("SELECT * FROM Participante", MAPPER, consumer);
+        } catch (SQLException e) {
+            LOG.error("Error reading all participants: {}", e.getMessage());
+            return -1;
+        }
+    }
+    
+    /**
+     * Pass the DNI of every participant to a consumer, reading only that column
+     * @param consumer Receives each DNI
+     * @return The number of DNIs read
+     * @throws SQLException if the query fails
+     */
+    public int forEachDni(Consumer<String> consumer) throws SQLException {
+        return StreamingQuery.forEach("SELECT dni FROM Participante", DNI_MAPPER, p -> consumer.accept(p.getDni()));
+    }
+    
+    /**
+     * Pass a summary of every participant to a consumer, streaming the rows
+     * @param consumer Receives each summary
+     * @return The number of participants read
+     * @throws SQLException if the query fails
+     */
+    public int forEachResumen(Consumer<? super ParticipanteResumen> consumer) throws SQLException {
+        return StreamingQuery.forEach("SELECT idParticipante, dni, nombre, apellido FROM Participante",
+            RESUMEN_MAPPER, consumer);
+    }
+    
+    /**
+     * Get a summary of the participants added after a given one.
+     * Seeks on the clustered primary key, so it is cheap to call often.
+     * @param afterIdParticipante The highest ID already seen
+     * @return The newer participants, ordered by ID
+     */
+    public List<ParticipanteResumen> findResumenAfter(int afterIdParticipante) {
+        List<ParticipanteResumen> participantes = new ArrayList<>();
+        String sql = "SELECT idParticipante, dni, nombre, apellido FROM Participante " +
+                     "WHERE idParticipante > ? ORDER BY idParticipante";
         Connection conn = null;
         PreparedStatement stmt = null;
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = DatabaseConnection.getReadConnection();
             stmt = conn.prepareStatement(sql);
+            stmt.setInt(1, afterIdParticipante);
             rs = stmt.executeQuery();
             
-            while (rs.next()) {
-                participantes.add(extractParticipanteFromResultSet(rs));
-            }
+            RESUMEN_MAPPER.mapAll(rs, participantes);
         } catch (SQLException e) {
-            System.err.println("Error finding all participants: " + e.getMessage());
+            LOG.error("Error finding new participant summaries: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return participantes;
@@ -233,47 +384,73 @@ public class ParticipanteDAO {
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = DatabaseConnection.getReadConnection();
             stmt = conn.prepareStatement(sql);
             String searchPattern = "%" + nombre + "%";
             stmt.setString(1, searchPattern);
             stmt.setString(2, searchPattern);
             
             rs = stmt.executeQuery();
-            while (rs.next()) {
-                participantes.add(extractParticipanteFromResultSet(rs));
-            }
+            MAPPER.mapAll(rs, participantes);
         } catch (SQLException e) {
-            System.err.println("Error searching participants by name: " + e.getMessage());
+            LOG.error("Error searching participants by name: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return participantes;
     }
     
     /**
-     * Extract a participant from a result set
-     * @param rs The result set to extract from
-     * @return The extracted participant
-     * @throws SQLException If an error occurs
+     * Get one page of participants ordered by last name.
+     * Seeks past the previous page on the (apellido, idParticipante) index,
+     * so every page costs the same as the first; the leading
+     * {@code apellido >= ?} is what lets the optimizer seek rather than scan.
+     * @param after The last participant of the previous page, or null for the first page
+     * @param pageSize Maximum number of participants on the page
+     * @return The page of participants
      */
-    private Participante extractParticipanteFromResultSet(ResultSet rs) throws SQLException {
-        Participante participante = new Participante();
-        participante.setIdParticipante(rs.getInt("idParticipante"));
-        participante.setNombre(rs.getString("nombre"));
-        participante.setApellido(rs.getString("apellido"));
-        participante.setDni(rs.getString("dni"));
-        participante.setEdad(rs.getInt("edad"));
-        participante.setSexo(rs.getString("sexo"));
-        participante.setDireccion(rs.getString("direccion"));
-        participante.setTelefono(rs.getString("telefono"));
-        participante.setCorreo(rs.getString("correo"));
-        return participante;
+    public Page<Participante> findPageByApellido(Participante after, int pageSize) {
+        List<Participante> participantes = new ArrayList<>();
+        String sql = after == null
+            ? "SELECT * FROM Participante ORDER BY apellido, idParticipante OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY"
+            : "SELECT * FROM Participante WHERE apellido >= ? AND (apellido > ? OR idParticipante > ?) " +
+              "ORDER BY apellido, idParticipante OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
+            int index = 1;
+            if (after != null) {
+                stmt.setString(index++, after.getApellido());
+                stmt.setString(index++, after.getApellido());
+                stmt.setInt(index++, after.getIdParticipante());
+            }
+            stmt.setInt(index, pageSize + 1); // One extra row tells whether another page follows
+            
+            rs = stmt.executeQuery();
+            MAPPER.mapAll(rs, participantes);
+            return Page.of(participantes, pageSize);
+        } catch (SQLException e) {
+            LOG.error("Error finding page of participants: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
+        }
+        return Page.empty();
     }
+    
 } 
\ No newline at end of file
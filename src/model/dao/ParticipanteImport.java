@@ -0,0 +1,577 @@
+package model.dao;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import model.database.DatabaseConnection;
+import model.database.QueryExecutor;
+import model.database.TransactionScope;
+import util.Logger;
+
+/**
+ * Imports participants from a CSV file, e.g. a municipal census.
+ * <ol>
+ *   <li>The file is parsed and each row validated in parallel.</li>
+ *   <li>DNIs are checked against the set of DNIs already in Participante,
+ *       read once, and against the rows before them in the file.</li>
+ *   <li>Valid rows are streamed with SQLServerBulkCopy into a temporary
+ *       staging table and merged into Participante in one transaction.</li>
+ * </ol>
+ * Rejected rows are written to {@code <file>.rechazados.csv} with their line
+ * number and the reason. The first line of the file names the columns, in
+ * any order: nombre, apellido, dni, edad and sexo are required; direccion,
+ * telefono and correo are optional. Fields are separated by commas, or by
+ * semicolons when the header has no comma, and may be quoted; a field
+ * cannot span lines.
+ * <p>
+ * On the embedded database, which has no bulk copy, valid rows are
+ * inserted with JDBC batches instead.
+ */
+public final class ParticipanteImport {
+    private static final Logger LOG = Logger.getLogger(ParticipanteImport.class);
+
+    private static final String[] COLUMNS = {"nombre", "apellido", "dni", "edad", "sexo", "direccion", "telefono", "correo"};
+    private static final int[] MAX_LENGTHS = {100, 100, 20, 0, 10, 200, 20, 100};
+    private static final int REQUIRED_COLUMNS = 5; // The first five of COLUMNS
+    private static final int DNI = 2;
+    private static final int EDAD = 3;
+    private static final Pattern DNI_PATTERN = Pattern.compile("[A-Za-z0-9-]+");
+    private static final int PROGRESS_INTERVAL = 1000;
+    private static final String STAGING_TABLE = "#ParticipanteImport";
+
+    /**
+     * Steps of an import, in order
+     */
+    public enum Phase {
+        READING,
+        VALIDATING,
+        LOADING,
+        MERGING,
+        DONE
+    }
+
+    /**
+     * Receives progress while an import runs. Called from the importing
+     * thread and, while reading, from worker threads; Swing listeners must
+     * hand off to the EDT.
+     */
+    public interface ProgressListener {
+        void progress(Phase phase, int done, int total);
+    }
+
+    /**
+     * Counts of a finished import
+     */
+    public static final class Result {
+        private final int read;
+        private final int imported;
+        private final int rejected;
+        private final Path rejectsFile;
+        private final String rejectsError;
+
+        Result(int read, int imported, int rejected, Path rejectsFile, String rejectsError) {
+            this.read = read;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.rejectsFile = rejectsFile;
+            this.rejectsError = rejectsError;
+        }
+
+        /**
+         * @return Number of data rows in the file
+         */
+        public int getRead() {
+            return read;
+        }
+
+        /**
+         * @return Number of participants added
+         */
+        public int getImported() {
+            return imported;
+        }
+
+        /**
+         * @return Number of rows written to the rejects file
+         */
+        public int getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return The rejects file, or null if no row was rejected or it could not be written
+         */
+        public Path getRejectsFile() {
+            return rejectsFile;
+        }
+
+        /**
+         * @return Why the rejects file could not be written, or null if it was.
+         *         The imported rows are committed either way.
+         */
+        public String getRejectsError() {
+            return rejectsError;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Result{read=%d, imported=%d, rejected=%d}", read, imported, rejected);
+        }
+    }
+
+    /**
+     * One data line of the file
+     */
+    private static final class Row {
+        private final int line;
+        private final String text;
+        private final String[] values = new String[COLUMNS.length];
+        private int edad;
+        private String reason; // Why the row was rejected; null while it is valid
+
+        Row(int line, String text) {
+            this.line = line;
+            this.text = text;
+        }
+    }
+
+    private final Path file;
+    private final ProgressListener listener;
+    private final ParticipanteDAO participanteDAO = new ParticipanteDAO();
+
+    /**
+     * @param file The CSV file to import
+     * @param listener Receives progress; may be null
+     */
+    public ParticipanteImport(Path file, ProgressListener listener) {
+        this.file = file;
+        this.listener = listener;
+    }
+
+    /**
+     * Runs the import. Either every valid row is added or, if the load
+     * fails, none is. The rejects file is written after the load has
+     * committed, so failing to write it is reported in the result rather
+     * than thrown.
+     * @return The counts of the import
+     * @throws IOException if the file cannot be read or lacks a required column
+     * @throws SQLException if the existing DNIs cannot be read or the load fails
+     */
+    public Result run() throws IOException, SQLException {
+        long start = System.currentTimeMillis();
+        List<String> lines = readLines(file);
+        if (lines.isEmpty()) {
+            throw new IOException("The file is empty: " + file);
+        }
+        String header = lines.get(0).replace("\uFEFF", ""); // Byte order mark written by some editors
+        char separator = header.indexOf(',') < 0 && header.indexOf(';') >= 0 ? ';' : ',';
+        int[] positions = columnPositions(split(header, separator));
+
+        Row[] rows = parse(lines, positions, separator);
+        List<Row> valid = new ArrayList<>(rows.length);
+        List<Row> rejected = new ArrayList<>();
+        validate(rows, valid, rejected);
+        int read = valid.size() + rejected.size();
+
+        int imported = 0;
+        if (!valid.isEmpty()) {
+            DniFilter dniFilter = DniFilter.participantes();
+            valid.forEach(row -> dniFilter.add(row.values[DNI]));
+            imported = DatabaseConnection.getDialect().isEmbedded()
+                ? insertBatches(valid)
+                : bulkLoad(valid, rejected);
+        }
+
+        Path rejectsFile = null;
+        String rejectsError = null;
+        if (!rejected.isEmpty()) {
+            try {
+                rejectsFile = writeRejects(rejected);
+            } catch (IOException e) {
+                rejectsError = e.getMessage();
+                LOG.error("Error writing the rejects file for {}: {}", file.getFileName(), e.getMessage());
+            }
+        }
+        report(Phase.DONE, read, read);
+        LOG.info("Imported {} of {} participants from {} in {} ms; {} rejected",
+            imported, read, file.getFileName(), System.currentTimeMillis() - start, rejected.size());
+        return new Result(read, imported, rejected.size(), rejectsFile, rejectsError);
+    }
+
+    /**
+     * Reads the file as UTF-8, falling back to Windows-1252 for files saved by older spreadsheets
+     */
+    private static List<String> readLines(Path file) throws IOException {
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (MalformedInputException e) {
+            return Files.readAllLines(file, Charset.forName("windows-1252"));
+        }
+    }
+
+    /**
+     * Maps each of COLUMNS to its position in the header
+     */
+    private static int[] columnPositions(List<String> header) throws IOException {
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            byName.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        int[] positions = new int[COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            Integer position = byName.get(COLUMNS[c]);
+            if (position == null && c < REQUIRED_COLUMNS) {
+                throw new IOException("Missing column in header: " + COLUMNS[c]);
+            }
+            positions[c] = position == null ? -1 : position;
+        }
+        return positions;
+    }
+
+    /**
+     * Parses and checks every data line in parallel; blank lines give null
+     */
+    private Row[] parse(List<String> lines, int[] positions, char separator) {
+        int total = lines.size() - 1;
+        Row[] rows = new Row[total];
+        AtomicInteger done = new AtomicInteger();
+        IntStream.range(0, total).parallel().forEach(i -> {
+            String text = lines.get(i + 1);
+            if (!text.trim().isEmpty()) {
+                Row row = new Row(i + 2, text);
+                parseRow(row, positions, separator);
+                rows[i] = row;
+            }
+            int count = done.incrementAndGet();
+            if (count % PROGRESS_INTERVAL == 0) {
+                report(Phase.READING, count, total);
+            }
+        });
+        report(Phase.READING, total, total);
+        return rows;
+    }
+
+    private static void parseRow(Row row, int[] positions, char separator) {
+        List<String> fields = split(row.text, separator);
+        for (int c = 0; c < COLUMNS.length; c++) {
+            int position = positions[c];
+            String value = position >= 0 && position < fields.size() ? fields.get(position).trim() : "";
+            row.values[c] = value.isEmpty() ? null : value;
+        }
+
+        for (int c = 0; c < COLUMNS.length && row.reason == null; c++) {
+            String value = row.values[c];
+            if (value == null) {
+                if (c < REQUIRED_COLUMNS) {
+                    row.reason = "Falta el campo " + COLUMNS[c];
+                }
+            } else if (MAX_LENGTHS[c] > 0 && value.length() > MAX_LENGTHS[c]) {
+                row.reason = "El campo " + COLUMNS[c] + " supera " + MAX_LENGTHS[c] + " caracteres";
+            }
+        }
+        if (row.reason == null && !DNI_PATTERN.matcher(row.values[DNI]).matches()) {
+            row.reason = "DNI inválido";
+        }
+        if (row.reason == null) {
+            try {
+                row.edad = Integer.parseInt(row.values[EDAD]);
+                if (row.edad < 0 || row.edad > 130) {
+                    row.reason = "Edad fuera de rango";
+                }
+            } catch (NumberFormatException e) {
+                row.reason = "Edad inválida";
+            }
+        }
+    }
+
+    /**
+     * Splits a line on the separator; double quotes group a field and "" is a literal quote
+     */
+    private static List<String> split(String line, char separator) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Rejects rows with errors and DNIs already registered or repeated in
+     * the file. Runs in file order, so the first occurrence of a DNI wins.
+     */
+    private void validate(Row[] rows, List<Row> valid, List<Row> rejected) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        participanteDAO.forEachDni(dni -> existing.add(dniKey(dni)));
+        LOG.debug("Loaded {} existing DNIs", existing.size());
+
+        Set<String> seen = new HashSet<>();
+        int done = 0;
+        for (Row row : rows) {
+            done++;
+            if (row == null) {
+                continue;
+            }
+            if (row.reason == null) {
+                String key = dniKey(row.values[DNI]);
+                if (existing.contains(key)) {
+                    row.reason = "DNI ya registrado";
+                } else if (!seen.add(key)) {
+                    row.reason = "DNI repetido en el archivo";
+                }
+            }
+            (row.reason == null ? valid : rejected).add(row);
+            if (done % PROGRESS_INTERVAL == 0) {
+                report(Phase.VALIDATING, done, rows.length);
+            }
+        }
+        report(Phase.VALIDATING, rows.length, rows.length);
+    }
+
+    /**
+     * DNIs are unique regardless of case, as under the database's default collation
+     */
+    private static String dniKey(String dni) {
+        return dni.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Bulk copies the rows into the staging table and merges them into
+     * Participante. Rows whose DNI was registered by someone else since the
+     * DNIs were read are moved to the rejected list.
+     * @return The number of participants inserted
+     */
+    private int bulkLoad(List<Row> valid, List<Row> rejected) throws SQLException {
+        try (TransactionScope tx = TransactionScope.begin();
+             Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.setQueryTimeout(QueryExecutor.QueryClass.BATCH.getTimeoutSeconds());
+            stmt.execute("IF OBJECT_ID('tempdb.." + STAGING_TABLE + "') IS NOT NULL DROP TABLE " + STAGING_TABLE);
+            stmt.execute("CREATE TABLE " + STAGING_TABLE + " ("
+                + "linea INT NOT NULL PRIMARY KEY, "
+                + "nombre VARCHAR(100) NOT NULL, "
+                + "apellido VARCHAR(100) NOT NULL, "
+                + "dni VARCHAR(20) COLLATE DATABASE_DEFAULT NOT NULL, " // tempdb may use another collation
+                + "edad INT NOT NULL, "
+                + "sexo VARCHAR(10) NOT NULL, "
+                + "direccion VARCHAR(200) NULL, "
+                + "telefono VARCHAR(20) NULL, "
+                + "correo VARCHAR(100) NULL)");
+            try {
+                SQLServerBulkCopyOptions options = new SQLServerBulkCopyOptions();
+                options.setBatchSize(DatabaseConnection.getBatchSize());
+                options.setBulkCopyTimeout(QueryExecutor.QueryClass.BATCH.getTimeoutSeconds());
+                options.setTableLock(true);
+                try (SQLServerBulkCopy bulkCopy = new SQLServerBulkCopy(conn.unwrap(SQLServerConnection.class))) {
+                    bulkCopy.setBulkCopyOptions(options);
+                    bulkCopy.setDestinationTableName(STAGING_TABLE);
+                    bulkCopy.writeToServer(new BulkRows(valid));
+                }
+                report(Phase.LOADING, valid.size(), valid.size());
+
+                report(Phase.MERGING, 0, valid.size());
+                Map<Integer, Row> byLine = new HashMap<>();
+                for (Row row : valid) {
+                    byLine.put(row.line, row);
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT s.linea FROM " + STAGING_TABLE + " s "
+                        + "WHERE EXISTS (SELECT 1 FROM Participante p WITH (UPDLOCK, HOLDLOCK) WHERE p.dni = s.dni) "
+                        + "ORDER BY s.linea")) {
+                    while (rs.next()) {
+                        Row row = byLine.get(rs.getInt(1));
+                        row.reason = "DNI ya registrado";
+                        rejected.add(row);
+                    }
+                }
+                int imported = stmt.executeUpdate("MERGE Participante WITH (HOLDLOCK) AS p "
+                    + "USING " + STAGING_TABLE + " AS s ON p.dni = s.dni "
+                    + "WHEN NOT MATCHED THEN INSERT (nombre, apellido, dni, edad, sexo, direccion, telefono, correo) "
+                    + "VALUES (s.nombre, s.apellido, s.dni, s.edad, s.sexo, s.direccion, s.telefono, s.correo);");
+                report(Phase.MERGING, imported, valid.size());
+
+                tx.commit();
+                return imported;
+            } finally {
+                // The session outlives the import in the pool; do not leave the table behind
+                try {
+                    stmt.execute("IF OBJECT_ID('tempdb.." + STAGING_TABLE + "') IS NOT NULL DROP TABLE " + STAGING_TABLE);
+                } catch (SQLException e) {
+                    LOG.warn("Error dropping staging table: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts the rows with JDBC batches, for databases without bulk copy
+     * @return The number of participants inserted
+     */
+    private int insertBatches(List<Row> valid) throws SQLException {
+        String sql = "INSERT INTO Participante (nombre, apellido, dni, edad, sexo, direccion, telefono, correo) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (TransactionScope tx = TransactionScope.begin();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int batchSize = DatabaseConnection.getBatchSize();
+            int done = 0;
+            for (Row row : valid) {
+                for (int c = 0; c < COLUMNS.length; c++) {
+                    if (c == EDAD) {
+                        stmt.setInt(c + 1, row.edad);
+                    } else {
+                        stmt.setString(c + 1, row.values[c]);
+                    }
+                }
+                stmt.addBatch();
+                if (++done % batchSize == 0 || done == valid.size()) {
+                    stmt.executeBatch();
+                    report(Phase.LOADING, done, valid.size());
+                }
+            }
+            tx.commit();
+            return done;
+        }
+    }
+
+    /**
+     * Writes the rejected rows, in line order, next to the imported file
+     */
+    private Path writeRejects(List<Row> rejected) throws IOException {
+        rejected.sort((a, b) -> Integer.compare(a.line, b.line));
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        Path rejectsFile = file.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".rechazados.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8)) {
+            writer.write("linea,motivo,registro");
+            writer.newLine();
+            for (Row row : rejected) {
+                writer.write(row.line + "," + quote(row.reason) + "," + quote(row.text));
+                writer.newLine();
+            }
+        }
+        return rejectsFile;
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private void report(Phase phase, int done, int total) {
+        if (listener != null) {
+            listener.progress(phase, done, total);
+        }
+    }
+
+    /**
+     * Feeds the valid rows to the bulk copy one at a time, in the column
+     * order of the staging table
+     */
+    private final class BulkRows implements ISQLServerBulkData {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Row> rows;
+        private final transient Iterator<Row> iterator;
+        private transient Row current;
+        private int count;
+
+        BulkRows(List<Row> rows) {
+            this.rows = rows;
+            this.iterator = rows.iterator();
+        }
+
+        @Override
+        public Set<Integer> getColumnOrdinals() {
+            Set<Integer> ordinals = new LinkedHashSet<>();
+            for (int ordinal = 1; ordinal <= COLUMNS.length + 1; ordinal++) {
+                ordinals.add(ordinal);
+            }
+            return ordinals;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return column == 1 ? "linea" : COLUMNS[column - 2];
+        }
+
+        @Override
+        public int getColumnType(int column) {
+            return column == 1 || column - 2 == EDAD ? Types.INTEGER : Types.VARCHAR;
+        }
+
+        @Override
+        public int getPrecision(int column) {
+            return column == 1 || column - 2 == EDAD ? 10 : MAX_LENGTHS[column - 2];
+        }
+
+        @Override
+        public int getScale(int column) {
+            return 0;
+        }
+
+        @Override
+        public Object[] getRowData() {
+            Object[] data = new Object[COLUMNS.length + 1];
+            data[0] = current.line;
+            for (int c = 0; c < COLUMNS.length; c++) {
+                data[c + 1] = c == EDAD ? (Object) current.edad : current.values[c];
+            }
+            return data;
+        }
+
+        @Override
+        public boolean next() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            current = iterator.next();
+            if (++count % PROGRESS_INTERVAL == 0) {
+                report(Phase.LOADING, count, rows.size());
+            }
+            return true;
+        }
+    }
+}
@@ -8,15 +8,75 @@ import java.util.ArrayList;
 import java.util.List;
 import model.Prediccion;
 import model.database.DatabaseConnection;
+import util.Logger;
 
 /**
  * Objeto de Acceso a Datos para la entidad Prediccion
  */
 public class PrediccionDAO {
-    private Connection conn;
+    private static final Logger LOG = Logger.getLogger(PrediccionDAO.class);
+    private static final RowMapper<Prediccion> MAPPER = columnas().build();
     
-    public PrediccionDAO() throws SQLException {
-        this.conn = DatabaseConnection.getConnection();
+    private static final RowMapper<Prediccion> CON_CAMPANA_MAPPER = columnas()
+        .column("nombreCampana", ResultSet::getString, Prediccion::setNombreCampana)
+        .build();
+    
+    /**
+     * Columnas comunes a los mappers de Prediccion
+     */
+    private static RowMapper.Builder<Prediccion> columnas() {
+        return RowMapper.builder(Prediccion::new)
+            .intColumn("idPrediccion", Prediccion::setIdPrediccion)
+            .intColumn("idCampana", Prediccion::setIdCampana)
+            .column("fechaPrediccion", ResultSet::getDate, Prediccion::setFechaPrediccion)
+            .intColumn("participacionEstimada", Prediccion::setParticipacionEstimada)
+            .doubleColumn("nivelConfianza", Prediccion::setNivelConfianza)
+            .column("notas", ResultSet::getString, Prediccion::setNotas)
+            .column("fechaCreacion", ResultSet::getTimestamp, Prediccion::setFechaCreacion);
+    }
+    
+    /**
+     * Inserta una nueva predicción y completa los valores asignados por la
+     * base de datos: idPrediccion, fechaCreacion.
+     * @param prediccion La predicción a insertar
+     * @return La misma predicción, ya guardada; null si falló la inserción
+     */
+    public Prediccion create(Prediccion prediccion) {
+        String sql = DatabaseConnection.getDialect().insertReturning("Prediccion",
+            "idCampana, fechaPrediccion, participacionEstimada, nivelConfianza, notas", "?, ?, ?, ?, ?",
+            "idPrediccion", "fechaCreacion");
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql);
+            stmt.setInt(1, prediccion.getIdCampana());
+            stmt.setDate(2, new java.sql.Date(prediccion.getFechaPrediccion().getTime()));
+            stmt.setInt(3, prediccion.getParticipacionEstimada());
+            stmt.setDouble(4, prediccion.getNivelConfianza());
+            stmt.setString(5, prediccion.getNotas());
+            
+            rs = stmt.executeQuery();
+            if (rs.next()) {
+                prediccion.setIdPrediccion(rs.getInt(1));
+                prediccion.setFechaCreacion(rs.getTimestamp(2));
+                return prediccion;
+            }
+        } catch (SQLException e) {
+            LOG.error("Error al insertar predicción: {}", e.getMessage());
+            return null;
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
+        }
+        return null;
     }
     
     /**
@@ -25,21 +85,53 @@ public class PrediccionDAO {
      * @return true si es exitoso, false en caso contrario
      */
     public boolean insert(Prediccion prediccion) {
-        String sql = "INSERT INTO Prediccion (idCampana, fechaPrediccion, participacionEstimada, nivelConfianza, notas) VALUES (?, ?, ?, ?, ?)";
+        return create(prediccion) != null;
+    }
+    
+    /**
+     * Guarda la predicción de una campaña en una sola sentencia: la inserta
+     * si la campaña aún no tiene predicción y si no reemplaza la existente.
+     * Dos generaciones simultáneas para la misma campaña no chocan con
+     * UC_Prediccion_Campana; la segunda actualiza lo que escribió la primera.
+     * @param prediccion La predicción a guardar
+     * @return La misma predicción, con el ID y la fecha de creación de la fila; null si falló
+     */
+    public Prediccion upsert(Prediccion prediccion) {
+        String sql = DatabaseConnection.getDialect().upsertReturning("Prediccion", "idCampana",
+            "idCampana, fechaPrediccion, participacionEstimada, nivelConfianza, notas",
+            "idPrediccion", "fechaCreacion");
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setInt(1, prediccion.getIdCampana());
             stmt.setDate(2, new java.sql.Date(prediccion.getFechaPrediccion().getTime()));
             stmt.setInt(3, prediccion.getParticipacionEstimada());
             stmt.setDouble(4, prediccion.getNivelConfianza());
             stmt.setString(5, prediccion.getNotas());
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            rs = stmt.executeQuery();
+            if (rs.next()) {
+                prediccion.setIdPrediccion(rs.getInt(1));
+                prediccion.setFechaCreacion(rs.getTimestamp(2));
+                return prediccion;
+            }
         } catch (SQLException e) {
-            System.err.println("Error al insertar predicción: " + e.getMessage());
-            return false;
+            LOG.error("Error al guardar la predicción de la campaña {}: {}", prediccion.getIdCampana(), e.getMessage());
+            return null;
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
+        return null;
     }
     
     /**
@@ -49,8 +141,12 @@ public class PrediccionDAO {
      */
     public boolean update(Prediccion prediccion) {
         String sql = "UPDATE Prediccion SET idCampana = ?, fechaPrediccion = ?, participacionEstimada = ?, nivelConfianza = ?, notas = ? WHERE idPrediccion = ?";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setInt(1, prediccion.getIdCampana());
             stmt.setDate(2, new java.sql.Date(prediccion.getFechaPrediccion().getTime()));
             stmt.setInt(3, prediccion.getParticipacionEstimada());
@@ -61,8 +157,15 @@ public class PrediccionDAO {
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating prediction: " + e.getMessage());
+            LOG.error("Error updating prediction: {}", e.getMessage());
             return false;
+        } finally {
+            try {
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
     }
     
@@ -73,15 +176,26 @@ public class PrediccionDAO {
      */
     public boolean delete(int idPrediccion) {
         String sql = "DELETE FROM Prediccion WHERE idPrediccion = ?";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idPrediccion);
             
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            System.err.println("Error deleting prediction: " + e.getMessage());
+            LOG.error("Error deleting prediction: {}", e.getMessage());
             return false;
+        } finally {
+            try {
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
     }
     
@@ -92,16 +206,29 @@ public class PrediccionDAO {
      */
     public Prediccion findById(int idPrediccion) {
         String sql = "SELECT * FROM Prediccion WHERE idPrediccion = ?";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idPrediccion);
             
-            ResultSet rs = stmt.executeQuery();
+            rs = stmt.executeQuery();
             if (rs.next()) {
-                return extractPrediccionFromResultSet(rs);
+                return MAPPER.map(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error finding prediction by ID: " + e.getMessage());
+            LOG.error("Error finding prediction by ID: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
         return null;
     }
@@ -113,16 +240,29 @@ public class PrediccionDAO {
      */
     public Prediccion findByCampana(int idCampana) {
         String sql = "SELECT * FROM Prediccion WHERE idCampana = ?";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idCampana);
             
-            ResultSet rs = stmt.executeQuery();
+            rs = stmt.executeQuery();
             if (rs.next()) {
-                return extractPrediccionFromResultSet(rs);
+                return MAPPER.map(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error finding prediction by campaign ID: " + e.getMessage());
+            LOG.error("Error finding prediction by campaign ID: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
         return null;
     }
@@ -134,33 +274,61 @@ public class PrediccionDAO {
     public List<Prediccion> findAll() {
         List<Prediccion> predicciones = new ArrayList<>();
         String sql = "SELECT * FROM Prediccion";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
+            rs = stmt.executeQuery();
             
-            while (rs.next()) {
-                predicciones.add(extractPrediccionFromResultSet(rs));
-            }
+            MAPPER.mapAll(rs, predicciones);
         } catch (SQLException e) {
-            System.err.println("Error finding all predictions: " + e.getMessage());
+            LOG.error("Error finding all predictions: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
         return predicciones;
     }
     
     /**
-     * Extract a prediction from a result set
-     * @param rs The result set to extract from
-     * @return The extracted prediction
-     * @throws SQLException If an error occurs
+     * Obtiene todas las predicciones junto con el nombre de su campaña,
+     * en una sola consulta
+     * @return Lista de todas las predicciones
      */
-    private Prediccion extractPrediccionFromResultSet(ResultSet rs) throws SQLException {
-        Prediccion prediccion = new Prediccion();
-        prediccion.setIdPrediccion(rs.getInt("idPrediccion"));
-        prediccion.setIdCampana(rs.getInt("idCampana"));
-        prediccion.setFechaPrediccion(rs.getDate("fechaPrediccion"));
-        prediccion.setParticipacionEstimada(rs.getInt("participacionEstimada"));
-        prediccion.setNivelConfianza(rs.getDouble("nivelConfianza"));
-        prediccion.setNotas(rs.getString("notas"));
-        return prediccion;
+    public List<Prediccion> findAllWithCampanaNombre() {
+        List<Prediccion> predicciones = new ArrayList<>();
+        String sql = "SELECT p.*, c.nombre AS nombreCampana FROM Prediccion p " +
+                     "INNER JOIN Campana c ON p.idCampana = c.idCampana";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
+            rs = stmt.executeQuery();
+            
+            CON_CAMPANA_MAPPER.mapAll(rs, predicciones);
+        } catch (SQLException e) {
+            LOG.error("Error finding predictions with campaign names: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
+        }
+        return predicciones;
     }
+    
 } 
\ No newline at end of file
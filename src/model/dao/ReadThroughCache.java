@@ -0,0 +1,119 @@
+package model.dao;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache that loads missing entries from the database.
+ * Entries expire after a fixed time to live, so rows changed by another
+ * client are seen again within that time; writes made by this application
+ * call {@link #invalidate} so they are seen at once. A load that started
+ * before an invalidation is not stored, which keeps a slow reader from
+ * putting back the value a concurrent writer just replaced.
+ * Null results (not found, or a query error already logged by the DAO)
+ * are returned but not cached.
+ * @param <K> The key type
+ * @param <V> The value type; cached values are shared, so callers must not modify them
+ */
+final class ReadThroughCache<K, V> {
+    private final Function<? super K, ? extends V> loader;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final CacheMetrics metrics;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation;
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * @param loader Reads the value of a key from the database
+     * @param maxSize Maximum number of entries kept
+     * @param ttlMillis How long an entry is served before it is read again
+     * @param metrics Counters to update, possibly shared with other caches
+     */
+    ReadThroughCache(Function<? super K, ? extends V> loader, int maxSize, long ttlMillis, CacheMetrics metrics) {
+        this.loader = loader;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = Math.max(0, ttlMillis) * 1_000_000L;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the cached value, loading it on a miss. The database is read
+     * outside the lock, so a slow query does not block hits on other keys.
+     * @param key The key
+     * @return The value, or null if the loader found none
+     */
+    V get(K key) {
+        long startGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAt < 0) {
+                    metrics.recordHit();
+                    return entry.value;
+                }
+                entries.remove(key);
+                metrics.recordExpiration();
+            }
+            metrics.recordMiss();
+            startGeneration = generation;
+        }
+
+        V value = loader.apply(key);
+        if (value != null) {
+            synchronized (this) {
+                if (generation == startGeneration) {
+                    entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+                    evictOverflow();
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Drops one entry after the row behind it was written
+     * @param key The key
+     */
+    synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+        metrics.recordInvalidation();
+    }
+
+    /**
+     * Drops every entry
+     */
+    synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        metrics.recordInvalidation();
+    }
+
+    /**
+     * @return Number of entries currently cached, including expired ones not yet dropped
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            metrics.recordEviction();
+        }
+    }
+}
@@ -1,28 +1,74 @@
 package model.dao;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import model.Participante;
 import model.RegistroParticipacion;
 import model.database.DatabaseConnection;
+import model.database.Dialect;
+import model.database.TransactionScope;
+import util.Logger;
 
 /**
  * Data Access Object for RegistroParticipacion entity
  */
 public class RegistroParticipacionDAO {
+    private static final Logger LOG = Logger.getLogger(RegistroParticipacionDAO.class);
+    private static final RowMapper<RegistroParticipacion> MAPPER = columns(RegistroParticipacion::new).build();
+    // Joined rows: the participant's own columns, plus idParticipante taken from the record
+    private static final RowMapper<RegistroParticipacion> WITH_PARTICIPANTE_MAPPER = columns(() -> {
+            RegistroParticipacion registro = new RegistroParticipacion();
+            registro.setParticipante(new Participante());
+            return registro;
+        })
+        .intColumn("idParticipante", (registro, id) -> registro.getParticipante().setIdParticipante(id))
+        .column("nombre", ResultSet::getString, participante(Participante::setNombre))
+        .column("apellido", ResultSet::getString, participante(Participante::setApellido))
+        .column("dni", ResultSet::getString, participante(Participante::setDni))
+        .intColumn("edad", (registro, edad) -> registro.getParticipante().setEdad(edad))
+        .column("sexo", ResultSet::getString, participante(Participante::setSexo))
+        .column("direccion", ResultSet::getString, participante(Participante::setDireccion))
+        .column("telefono", ResultSet::getString, participante(Participante::setTelefono))
+        .column("correo", ResultSet::getString, participante(Participante::setCorreo))
+        .build();
+    
+    private static RowMapper.Builder<RegistroParticipacion> columns(Supplier<RegistroParticipacion> factory) {
+        return RowMapper.builder(factory)
+            .intColumn("idRegistro", RegistroParticipacion::setIdRegistro)
+            .intColumn("idParticipante", RegistroParticipacion::setIdParticipante)
+            .intColumn("idActividad", RegistroParticipacion::setIdActividad)
+            .column("resultado", ResultSet::getString, RegistroParticipacion::setResultado)
+            .column("observaciones", ResultSet::getString, RegistroParticipacion::setObservaciones)
+            .column("fechaRegistro", ResultSet::getTimestamp, RegistroParticipacion::setFechaRegistro);
+    }
+    
+    private static <V> BiConsumer<RegistroParticipacion, V> participante(BiConsumer<Participante, V> setter) {
+        return (registro, value) -> setter.accept(registro.getParticipante(), value);
+    }
     
     /**
-     * Insert a new participation record into the database
-     * @param registro The record to insert
-     * @return true if successful, false otherwise
+     * Insert a new participation record and fill in the values the database assigned:
+     * idRegistro, fechaRegistro.
+     * @param registro The participation record to insert
+     * @return The same participation record, now persisted; null if the insert failed
      */
-    public boolean insert(RegistroParticipacion registro) {
-        String sql = "INSERT INTO RegistroParticipacion (idParticipante, idActividad, resultado, observaciones) VALUES (?, ?, ?, ?)";
+    public RegistroParticipacion create(RegistroParticipacion registro) {
+        String sql = DatabaseConnection.getDialect().insertReturning("RegistroParticipacion",
+            "idParticipante, idActividad, resultado, observaciones", "?, ?, ?, ?",
+            "idRegistro", "fechaRegistro");
         Connection conn = null;
         PreparedStatement stmt = null;
+        ResultSet rs = null;
         
         try {
             conn = DatabaseConnection.getConnection();
@@ -32,21 +78,121 @@ public class RegistroParticipacionDAO {
             stmt.setString(3, registro.getResultado());
             stmt.setString(4, registro.getObservaciones());
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            rs = stmt.executeQuery();
+            if (rs.next()) {
+                registro.setIdRegistro(rs.getInt(1));
+                registro.setFechaRegistro(rs.getTimestamp(2));
+                return registro;
+            }
         } catch (SQLException e) {
-            System.err.println("Error inserting participation record: " + e.getMessage());
-            return false;
+            LOG.error("Error inserting participation record: {}", e.getMessage());
+            return null;
         } finally {
             try {
+                if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Insert a new participation record into the database
+     * @param registro The record to insert
+     * @return true if successful, false otherwise
+     */
+    public boolean insert(RegistroParticipacion registro) {
+        return create(registro) != null;
+    }
+    
+    /**
+     * Insert many participation records in one transaction.
+     * Rows are sent with executeBatch() in chunks of {@code db.batch.size};
+     * a row the database rejects (already registered, or unknown participant
+     * or activity) is skipped and reported instead of failing the others.
+     * @param registros The records to insert
+     * @return The outcome of each record, in the same order; every outcome is
+     *         FAILED if the transaction had to be rolled back
+     */
+    public List<InsertOutcome> insertAll(List<RegistroParticipacion> registros) {
+        String sql = "INSERT INTO RegistroParticipacion (idParticipante, idActividad, resultado, observaciones) VALUES (?, ?, ?, ?)";
+        List<InsertOutcome> outcomes = new ArrayList<>(registros.size());
+        
+        // The statement is closed before the scope hands the connection back to the pool
+        try (TransactionScope tx = TransactionScope.begin();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int batchSize = DatabaseConnection.getBatchSize();
+            for (int start = 0; start < registros.size(); start += batchSize) {
+                List<RegistroParticipacion> chunk = registros.subList(start, Math.min(start + batchSize, registros.size()));
+                for (RegistroParticipacion registro : chunk) {
+                    bindInsert(stmt, registro);
+                    stmt.addBatch();
+                }
+        
+                int[] counts;
+                try {
+                    counts = stmt.executeBatch();
+                } catch (BatchUpdateException e) {
+                    // Drivers differ in whether they go on after a failed row; the counts say how far they got
+                    counts = e.getUpdateCounts();
+                    stmt.clearBatch();
+                }
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (i < counts.length && counts[i] != Statement.EXECUTE_FAILED) {
+                        outcomes.add(InsertOutcome.INSERTED);
+                    } else {
+                        // Failed or never run: insert it alone to learn why
+                        outcomes.add(insertOne(stmt, chunk.get(i)));
+                    }
+                }
+            }
+        
+            tx.commit();
+            return outcomes;
+        } catch (SQLException e) {
+            LOG.error("Error inserting batch of participation records: {}", e.getMessage());
+            outcomes.clear();
+            for (int i = 0; i < registros.size(); i++) {
+                outcomes.add(InsertOutcome.FAILED);
             }
+            return outcomes;
         }
     }
     
+    /**
+     * Inserts a single row with the batch statement and classifies a constraint violation
+     * @throws SQLException if the row fails for any other reason
+     */
+    private InsertOutcome insertOne(PreparedStatement stmt, RegistroParticipacion registro) throws SQLException {
+        try {
+            bindInsert(stmt, registro);
+            stmt.executeUpdate();
+            return InsertOutcome.INSERTED;
+        } catch (SQLException e) {
+            Dialect dialect = DatabaseConnection.getDialect();
+            if (dialect.isDuplicateKey(e)) {
+                LOG.debug("Participant {} is already registered in activity {}", registro.getIdParticipante(), registro.getIdActividad());
+                return InsertOutcome.DUPLICATE;
+            }
+            if (dialect.isForeignKeyViolation(e)) {
+                LOG.debug("Participant {} or activity {} does not exist", registro.getIdParticipante(), registro.getIdActividad());
+                return InsertOutcome.FOREIGN_KEY_VIOLATION;
+            }
+            throw e;
+        }
+    }
+    
+    private static void bindInsert(PreparedStatement stmt, RegistroParticipacion registro) throws SQLException {
+        stmt.setInt(1, registro.getIdParticipante());
+        stmt.setInt(2, registro.getIdActividad());
+        stmt.setString(3, registro.getResultado());
+        stmt.setString(4, registro.getObservaciones());
+    }
+    
     /**
      * Update an existing participation record in the database
      * @param registro The record to update
@@ -69,14 +215,14 @@ public class RegistroParticipacionDAO {
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating participation record: " + e.getMessage());
+            LOG.error("Error updating participation record: {}", e.getMessage());
             return false;
         } finally {
             try {
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
     }
@@ -99,14 +245,14 @@ public class RegistroParticipacionDAO {
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            System.err.println("Error deleting participation record: " + e.getMessage());
+            LOG.error("Error deleting participation record: {}", e.getMessage());
             return false;
         } finally {
             try {
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
     }
@@ -123,131 +269,254 @@ public class RegistroParticipacionDAO {
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = DatabaseConnection.getReadConnection();
             stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idRegistro);
             
             rs = stmt.executeQuery();
             if (rs.next()) {
-                return extractRegistroFromResultSet(rs);
+                return MAPPER.map(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error finding participation record by ID: " + e.getMessage());
+            LOG.error("Error finding participation record by ID: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return null;
     }
     
     /**
-     * Get all participation records from the database
+     * Get all participation records from the database.
+     * Holds the whole table in memory; for large tables use
+     * {@link #streamAll()} or {@link #forEachAll(Consumer)}.
      * @return A list of all participation records
      */
     public List<RegistroParticipacion> findAll() {
         List<RegistroParticipacion> registros = new ArrayList<>();
-        String sql = "SELECT * FROM RegistroParticipacion";
+        forEachAll(registros::add);
+        return registros;
+    }
+    
+    /**
+     * Stream all participation records without loading the table into memory.
+     * The stream keeps a database connection until it is closed:
+     * <pre>
+     *     try (Stream&lt;RegistroParticipacion&gt; registros = dao.streamAll()) { ... }
+     * </pre>
+     * @return A lazily read stream of participation records
+     * @throws SQLException if the query cannot be started
+     */
+    public Stream<RegistroParticipacion> streamAll() throws SQLException {
+        return StreamingQuery.stream("SELECT * FROM RegistroParticipacion", MAPPER);
+    }
+    
+    /**
+     * Pass every participation record to a consumer as rows arrive from the database
+     * @param consumer Receives each participation record
+     * @return The number of participation records read, or -1 if the query failed
+     */
+    public int forEachAll(Consumer<? super RegistroParticipacion> consumer) {
+        try {
+            return StreamingQuery.forEach("SELECT * FROM RegistroParticipacion", MAPPER, consumer);
+        } catch (SQLException e) {
+            LOG.error("Error reading all participation records: {}", e.getMessage());
+            return -1;
+        }
+    }
+    
+    /**
+     * Get participation records by participant ID
+     * @param idParticipante The ID of the participant
+     * @return A list of records for the participant
+     */
+    public List<RegistroParticipacion> findByParticipante(int idParticipante) {
+        List<RegistroParticipacion> registros = new ArrayList<>();
+        String sql = "SELECT * FROM RegistroParticipacion WHERE idParticipante = ?";
         Connection conn = null;
         PreparedStatement stmt = null;
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = DatabaseConnection.getReadConnection();
             stmt = conn.prepareStatement(sql);
+            stmt.setInt(1, idParticipante);
             rs = stmt.executeQuery();
             
-            while (rs.next()) {
-                registros.add(extractRegistroFromResultSet(rs));
-            }
+            MAPPER.mapAll(rs, registros);
         } catch (SQLException e) {
-            System.err.println("Error finding all participation records: " + e.getMessage());
+            LOG.error("Error finding participation records by participant: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return registros;
     }
     
     /**
-     * Get participation records by participant ID
-     * @param idParticipante The ID of the participant
-     * @return A list of records for the participant
+     * Get participation records by activity ID
+     * @param idActividad The ID of the activity
+     * @return A list of records for the activity
      */
-    public List<RegistroParticipacion> findByParticipante(int idParticipante) {
+    public List<RegistroParticipacion> findByActividad(int idActividad) {
         List<RegistroParticipacion> registros = new ArrayList<>();
-        String sql = "SELECT * FROM RegistroParticipacion WHERE idParticipante = ?";
+        String sql = "SELECT * FROM RegistroParticipacion WHERE idActividad = ?";
         Connection conn = null;
         PreparedStatement stmt = null;
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = DatabaseConnection.getReadConnection();
             stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, idParticipante);
+            stmt.setInt(1, idActividad);
             rs = stmt.executeQuery();
             
-            while (rs.next()) {
-                registros.add(extractRegistroFromResultSet(rs));
-            }
+            MAPPER.mapAll(rs, registros);
         } catch (SQLException e) {
-            System.err.println("Error finding participation records by participant: " + e.getMessage());
+            LOG.error("Error finding participation records by activity: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return registros;
     }
     
     /**
-     * Get participation records by activity ID
+     * Get participation records by activity ID, each with its participant loaded
      * @param idActividad The ID of the activity
      * @return A list of records for the activity
      */
-    public List<RegistroParticipacion> findByActividad(int idActividad) {
+    public List<RegistroParticipacion> findByActividadWithParticipante(int idActividad) {
         List<RegistroParticipacion> registros = new ArrayList<>();
-        String sql = "SELECT * FROM RegistroParticipacion WHERE idActividad = ?";
+        // Explicit columns: with r.*, p.* both tables would contribute idParticipante
+        String sql = "SELECT r.idRegistro, r.idParticipante, r.idActividad, r.resultado, r.observaciones, r.fechaRegistro, " +
+                     "p.nombre, p.apellido, p.dni, p.edad, p.sexo, p.direccion, p.telefono, p.correo " +
+                     "FROM RegistroParticipacion r " +
+                     "INNER JOIN Participante p ON r.idParticipante = p.idParticipante " +
+                     "WHERE r.idActividad = ?";
         Connection conn = null;
         PreparedStatement stmt = null;
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = DatabaseConnection.getReadConnection();
             stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idActividad);
             rs = stmt.executeQuery();
             
-            while (rs.next()) {
-                registros.add(extractRegistroFromResultSet(rs));
-            }
+            WITH_PARTICIPANTE_MAPPER.mapAll(rs, registros);
         } catch (SQLException e) {
-            System.err.println("Error finding participation records by activity: " + e.getMessage());
+            LOG.error("Error finding participation records with participants by activity: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return registros;
     }
     
+    /**
+     * Get one page of the participation records of an activity, each with its participant loaded.
+     * Seeks on the idActividad index (which carries idRegistro as its row
+     * locator), so every page costs the same as the first.
+     * @param idActividad The ID of the activity
+     * @param afterIdRegistro The last record ID of the previous page, or 0 for the first page
+     * @param pageSize Maximum number of records on the page
+     * @return The page of records
+     */
+    public Page<RegistroParticipacion> findPageByActividadWithParticipante(int idActividad, int afterIdRegistro, int pageSize) {
+        List<RegistroParticipacion> registros = new ArrayList<>();
+        String sql = "SELECT r.idRegistro, r.idParticipante, r.idActividad, r.resultado, r.observaciones, r.fechaRegistro, " +
+                     "p.nombre, p.apellido, p.dni, p.edad, p.sexo, p.direccion, p.telefono, p.correo " +
+                     "FROM RegistroParticipacion r " +
+                     "INNER JOIN Participante p ON r.idParticipante = p.idParticipante " +
+                     "WHERE r.idActividad = ? AND r.idRegistro > ? " +
+                     "ORDER BY r.idRegistro OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
+            stmt.setInt(1, idActividad);
+            stmt.setInt(2, afterIdRegistro);
+            stmt.setInt(3, pageSize + 1); // One extra row tells whether another page follows
+            rs = stmt.executeQuery();
+            
+            WITH_PARTICIPANTE_MAPPER.mapAll(rs, registros);
+            return Page.of(registros, pageSize);
+        } catch (SQLException e) {
+            LOG.error("Error finding page of participation records by activity: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
+        }
+        return Page.empty();
+    }
+    
+    /**
+     * Check whether a participant is already registered for an activity.
+     * Inside a TransactionScope the matching range stays locked until the
+     * transaction ends, so a following insert cannot race a concurrent one.
+     * @param idParticipante The ID of the participant
+     * @param idActividad The ID of the activity
+     * @return true if a record exists, false otherwise
+     */
+    public boolean exists(int idParticipante, int idActividad) {
+        Dialect dialect = DatabaseConnection.getDialect();
+        String sql = "SELECT 1 FROM " + dialect.lockedTable("RegistroParticipacion")
+            + " WHERE idParticipante = ? AND idActividad = ?" + dialect.forUpdateClause();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql);
+            stmt.setInt(1, idParticipante);
+            stmt.setInt(2, idActividad);
+            rs = stmt.executeQuery();
+            
+            return rs.next();
+        } catch (SQLException e) {
+            LOG.error("Error checking existing registration: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
+        }
+        return false;
+    }
+    
     /**
      * Count participants for a specific activity
      * @param idActividad The ID of the activity
@@ -260,7 +529,7 @@ public class RegistroParticipacionDAO {
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = DatabaseConnection.getReadConnection();
             stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idActividad);
             rs = stmt.executeQuery();
@@ -269,14 +538,14 @@ public class RegistroParticipacionDAO {
                 return rs.getInt("total");
             }
         } catch (SQLException e) {
-            System.err.println("Error counting participants by activity: " + e.getMessage());
+            LOG.error("Error counting participants by activity: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return 0;
@@ -294,7 +563,7 @@ public class RegistroParticipacionDAO {
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
+            conn = DatabaseConnection.getReadConnection();
             stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idParticipante);
             rs = stmt.executeQuery();
@@ -303,33 +572,17 @@ public class RegistroParticipacionDAO {
                 return rs.getInt("total");
             }
         } catch (SQLException e) {
-            System.err.println("Error counting activities by participant: " + e.getMessage());
+            LOG.error("Error counting activities by participant: {}", e.getMessage());
         } finally {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                LOG.warn("Error closing database resources", e);
             }
         }
         return 0;
     }
     
-    /**
-     * Extract a participation record from a result set
-     * @param rs The result set to extract from
-     * @return The extracted record
-     * @throws SQLException If an error occurs
-     */
-    private RegistroParticipacion extractRegistroFromResultSet(ResultSet rs) throws SQLException {
-        RegistroParticipacion registro = new RegistroParticipacion();
-        registro.setIdRegistro(rs.getInt("idRegistro"));
-        registro.setIdParticipante(rs.getInt("idParticipante"));
-        registro.setIdActividad(rs.getInt("idActividad"));
-        registro.setResultado(rs.getString("resultado"));
-        registro.setObservaciones(rs.getString("observaciones"));
-        registro.setFechaRegistro(rs.getTimestamp("fechaRegistro"));
-        return registro;
-    }
 } 
\ No newline at end of file
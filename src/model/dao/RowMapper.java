@@ -0,0 +1,261 @@
+package model.dao;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Maps result set rows to entities by column index.
+ * Reading a column by name makes the driver search the column list on
+ * every call, for every row. A RowMapper resolves each column name to its
+ * index once per result set shape (the list of column labels) and keeps
+ * the resolved plan, so a scan with {@link #mapAll}, {@link #forEach} or
+ * {@link #stream} reads columns by position:
+ * <pre>
+ *     static final RowMapper&lt;Campana&gt; MAPPER = RowMapper.builder(Campana::new)
+ *         .intColumn("idCampana", Campana::setIdCampana)
+ *         .column("nombre", ResultSet::getString, Campana::setNombre)
+ *         .build();
+ *
+ *     MAPPER.mapAll(rs, campanas);
+ * </pre>
+ * Column labels match case-insensitively; when a label occurs more than
+ * once, as with {@code SELECT a.*, b.*}, the first occurrence wins.
+ * @param <T> The entity type
+ */
+public final class RowMapper<T> {
+    private static final int MAX_SHAPES = 32;
+
+    /**
+     * Reads one column of the current row
+     * @param <V> The value type
+     */
+    @FunctionalInterface
+    public interface ColumnReader<V> {
+        V read(ResultSet rs, int columnIndex) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface Applier<T> {
+        void apply(T target, ResultSet rs, int columnIndex) throws SQLException;
+    }
+
+    private static final class Binding<T> {
+        private final String label;
+        private final Applier<T> applier;
+
+        Binding(String label, Applier<T> applier) {
+            this.label = label.toLowerCase(Locale.ROOT);
+            this.applier = applier;
+        }
+    }
+
+    private final Supplier<T> factory;
+    private final List<Binding<T>> bindings;
+    private final Map<String, int[]> plans = new ConcurrentHashMap<>();
+
+    private RowMapper(Supplier<T> factory, List<Binding<T>> bindings) {
+        this.factory = factory;
+        this.bindings = bindings;
+    }
+
+    /**
+     * Starts a mapper definition
+     * @param factory Creates an empty entity for each row
+     * @return The builder
+     */
+    public static <T> Builder<T> builder(Supplier<T> factory) {
+        return new Builder<>(factory);
+    }
+
+    /**
+     * Maps the current row, for single-row lookups. Columns are found with
+     * {@link ResultSet#findColumn}, which is cheaper for one row than
+     * resolving a plan; scans use {@link #mapAll} or {@link #forEach}.
+     * @param rs A result set positioned on a row
+     * @return The entity
+     * @throws SQLException if a mapped column is missing or cannot be read
+     */
+    public T map(ResultSet rs) throws SQLException {
+        T target = factory.get();
+        for (Binding<T> binding : bindings) {
+            binding.applier.apply(target, rs, rs.findColumn(binding.label));
+        }
+        return target;
+    }
+
+    /**
+     * Maps every remaining row, resolving the columns once
+     * @param rs A result set positioned before the first row to map
+     * @param target The list the entities are added to
+     * @return The target list
+     * @throws SQLException if a mapped column is missing or cannot be read
+     */
+    public List<T> mapAll(ResultSet rs, List<T> target) throws SQLException {
+        forEach(rs, target::add);
+        return target;
+    }
+
+    /**
+     * Maps every remaining row into a new list
+     * @param rs A result set positioned before the first row to map
+     * @return The entities
+     * @throws SQLException if a mapped column is missing or cannot be read
+     */
+    public List<T> mapAll(ResultSet rs) throws SQLException {
+        return mapAll(rs, new ArrayList<>());
+    }
+
+    /**
+     * Maps every remaining row and hands it to a consumer, resolving the columns once
+     * @param rs A result set positioned before the first row to map
+     * @param consumer Receives each entity
+     * @return The number of rows mapped
+     * @throws SQLException if a mapped column is missing or cannot be read
+     */
+    public int forEach(ResultSet rs, Consumer<? super T> consumer) throws SQLException {
+        int[] plan = null;
+        int count = 0;
+        while (rs.next()) {
+            if (plan == null) {
+                plan = plan(rs.getMetaData());
+            }
+            consumer.accept(map(rs, plan));
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Maps the remaining rows lazily, as the stream is consumed
+     * @param rs A result set positioned before the first row to map
+     * @param onClose Releases the result set and its statement and connection; run when the stream is closed
+     * @return A sequential stream; errors while reading surface as {@link DataAccessException}
+     */
+    public Stream<T> stream(ResultSet rs, Runnable onClose) {
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int[] plan;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    if (plan == null) {
+                        plan = plan(rs.getMetaData());
+                    }
+                    action.accept(map(rs, plan));
+                    return true;
+                } catch (SQLException e) {
+                    throw new DataAccessException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(onClose);
+    }
+
+    private T map(ResultSet rs, int[] plan) throws SQLException {
+        T target = factory.get();
+        for (int i = 0; i < plan.length; i++) {
+            bindings.get(i).applier.apply(target, rs, plan[i]);
+        }
+        return target;
+    }
+
+    /**
+     * Gets the column index of every binding for a result set shape,
+     * resolving and caching it on first sight
+     */
+    private int[] plan(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] labels = new String[columnCount];
+        StringBuilder shape = new StringBuilder();
+        for (int column = 1; column <= columnCount; column++) {
+            labels[column - 1] = metaData.getColumnLabel(column).toLowerCase(Locale.ROOT);
+            shape.append(labels[column - 1]).append(',');
+        }
+        String key = shape.toString();
+        int[] plan = plans.get(key);
+        if (plan != null) {
+            return plan;
+        }
+
+        plan = new int[bindings.size()];
+        for (int i = 0; i < plan.length; i++) {
+            String label = bindings.get(i).label;
+            int index = 0;
+            for (int column = 0; column < columnCount && index == 0; column++) {
+                if (labels[column].equals(label)) {
+                    index = column + 1;
+                }
+            }
+            if (index == 0) {
+                throw new SQLException("Column not found in result set: " + label);
+            }
+            plan[i] = index;
+        }
+        if (plans.size() >= MAX_SHAPES) {
+            plans.clear(); // Only ad-hoc queries produce many shapes; start over rather than grow
+        }
+        plans.put(key, plan);
+        return plan;
+    }
+
+    /**
+     * Collects the column bindings of a mapper
+     * @param <T> The entity type
+     */
+    public static final class Builder<T> {
+        private final Supplier<T> factory;
+        private final List<Binding<T>> bindings = new ArrayList<>();
+
+        private Builder(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        /**
+         * Maps an int column; SQL NULL becomes 0, as with {@link ResultSet#getInt(int)}
+         */
+        public Builder<T> intColumn(String label, ObjIntConsumer<T> setter) {
+            return add(label, (target, rs, index) -> setter.accept(target, rs.getInt(index)));
+        }
+
+        /**
+         * Maps a double column; SQL NULL becomes 0, as with {@link ResultSet#getDouble(int)}
+         */
+        public Builder<T> doubleColumn(String label, ObjDoubleConsumer<T> setter) {
+            return add(label, (target, rs, index) -> setter.accept(target, rs.getDouble(index)));
+        }
+
+        /**
+         * Maps a column read with any ResultSet getter, e.g. {@code ResultSet::getString}
+         */
+        public <V> Builder<T> column(String label, ColumnReader<? extends V> reader, BiConsumer<T, V> setter) {
+            return add(label, (target, rs, index) -> setter.accept(target, reader.read(rs, index)));
+        }
+
+        public RowMapper<T> build() {
+            return new RowMapper<>(factory, new ArrayList<>(bindings));
+        }
+
+        private Builder<T> add(String label, Applier<T> applier) {
+            bindings.add(new Binding<>(label, applier));
+            return this;
+        }
+    }
+}
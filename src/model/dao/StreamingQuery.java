@@ -0,0 +1,78 @@
+package model.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import model.database.DatabaseConnection;
+import util.Logger;
+
+/**
+ * Runs full-table reads without materializing the result.
+ * Rows come from a forward-only, read-only statement prepared with
+ * {@link DatabaseConnection#prepareStreaming}, so memory use stays at one
+ * fetch of rows no matter how large the table is.
+ */
+final class StreamingQuery {
+    private static final Logger LOG = Logger.getLogger(StreamingQuery.class);
+
+    private StreamingQuery() {
+    }
+
+    /**
+     * Opens a lazily mapped stream. The stream holds a read connection
+     * until it is closed, so callers must use try-with-resources.
+     * @param sql The query, without parameters
+     * @param mapper Maps each row
+     * @return The stream of entities
+     * @throws SQLException if the query cannot be started
+     */
+    static <T> Stream<T> stream(String sql, RowMapper<T> mapper) throws SQLException {
+        Connection conn = DatabaseConnection.getReadConnection();
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = DatabaseConnection.prepareStreaming(conn, sql);
+            rs = stmt.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            close(rs, stmt, conn);
+            throw e;
+        }
+        ResultSet openRs = rs;
+        PreparedStatement openStmt = stmt;
+        return mapper.stream(rs, () -> close(openRs, openStmt, conn));
+    }
+
+    /**
+     * Reads every row and hands it to a consumer as it arrives
+     * @param sql The query, without parameters
+     * @param mapper Maps each row
+     * @param consumer Receives each entity
+     * @return The number of rows read
+     * @throws SQLException if the query fails
+     */
+    static <T> int forEach(String sql, RowMapper<T> mapper, Consumer<? super T> consumer) throws SQLException {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = DatabaseConnection.prepareStreaming(conn, sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return mapper.forEach(rs, consumer);
+        }
+    }
+
+    private static void close(ResultSet rs, PreparedStatement stmt, Connection conn) {
+        try {
+            if (rs != null) rs.close();
+            if (stmt != null) stmt.close();
+        } catch (SQLException e) {
+            LOG.warn("Error closing database resources", e);
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
+        }
+    }
+}
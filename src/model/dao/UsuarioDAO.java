@@ -5,29 +5,55 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import model.Usuario;
 import model.database.DatabaseConnection;
+import util.Logger;
 
 /**
  * Data Access Object for Usuario entity
  */
 public class UsuarioDAO {
-    private Connection conn;
-    
-    public UsuarioDAO() throws SQLException {
-        this.conn = DatabaseConnection.getConnection();
-    }
+    private static final Logger LOG = Logger.getLogger(UsuarioDAO.class);
+    private static final RowMapper<Usuario> MAPPER = RowMapper.builder(Usuario::new)
+        .intColumn("idUsuario", Usuario::setIdUsuario)
+        .column("nombre", ResultSet::getString, Usuario::setNombre)
+        .column("apellido", ResultSet::getString, Usuario::setApellido)
+        .column("correo", ResultSet::getString, Usuario::setCorreo)
+        .column("dni", ResultSet::getString, Usuario::setDni)
+        .column("rol", ResultSet::getString, Usuario::setRol)
+        .column("contrasena", ResultSet::getString, Usuario::setContrasena)
+        .column("fechaCreacion", ResultSet::getTimestamp, Usuario::setFechaCreacion)
+        .column("UltimoAcceso", ResultSet::getTimestamp, Usuario::setUltimoAcceso)
+        .build();
+    private static final RowMapper<Usuario> ID_DNI_MAPPER = RowMapper.builder(Usuario::new)
+        .intColumn("idUsuario", Usuario::setIdUsuario)
+        .column("dni", ResultSet::getString, Usuario::setDni)
+        .build();
+    private static final RowMapper<Usuario> DNI_MAPPER = RowMapper.builder(Usuario::new)
+        .column("dni", ResultSet::getString, Usuario::setDni)
+        .build();
     
     /**
-     * Insert a new user into the database
+     * Insert a new user and fill in the values the database assigned:
+     * idUsuario, fechaCreacion.
      * @param usuario The user to insert
-     * @return true if successful, false otherwise
+     * @return The same user, now persisted; null if the insert failed
      */
-    public boolean insert(Usuario usuario) {
-        String sql = "INSERT INTO Usuario (nombre, apellido, correo, dni, rol, contrasena) VALUES (?, ?, ?, ?, ?, ?)";
+    public Usuario create(Usuario usuario) {
+        String sql = DatabaseConnection.getDialect().insertReturning("Usuario",
+            "nombre, apellido, correo, dni, rol, contrasena", "?, ?, ?, ?, ?, ?",
+            "idUsuario", "fechaCreacion");
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setString(1, usuario.getNombre());
             stmt.setString(2, usuario.getApellido());
             stmt.setString(3, usuario.getCorreo());
@@ -35,12 +61,35 @@ public class UsuarioDAO {
             stmt.setString(5, usuario.getRol());
             stmt.setString(6, usuario.getContrasena());
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            DniFilter.usuarios().add(usuario.getDni()); // Before the row can be seen
+            rs = stmt.executeQuery();
+            if (rs.next()) {
+                usuario.setIdUsuario(rs.getInt(1));
+                usuario.setFechaCreacion(rs.getTimestamp(2));
+                return usuario;
+            }
         } catch (SQLException e) {
-            System.err.println("Error inserting user: " + e.getMessage());
-            return false;
+            LOG.error("Error inserting user: {}", e.getMessage());
+            return null;
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
+        return null;
+    }
+    
+    /**
+     * Insert a new user into the database
+     * @param usuario The user to insert
+     * @return true if successful, false otherwise
+     */
+    public boolean insert(Usuario usuario) {
+        return create(usuario) != null;
     }
     
     /**
@@ -50,8 +99,12 @@ public class UsuarioDAO {
      */
     public boolean update(Usuario usuario) {
         String sql = "UPDATE Usuario SET nombre = ?, apellido = ?, correo = ?, dni = ?, rol = ?, contrasena = ? WHERE idUsuario = ?";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setString(1, usuario.getNombre());
             stmt.setString(2, usuario.getApellido());
             stmt.setString(3, usuario.getCorreo());
@@ -60,11 +113,19 @@ public class UsuarioDAO {
             stmt.setString(6, usuario.getContrasena());
             stmt.setInt(7, usuario.getIdUsuario());
             
+            DniFilter.usuarios().add(usuario.getDni());
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating user: " + e.getMessage());
+            LOG.error("Error updating user: {}", e.getMessage());
             return false;
+        } finally {
+            try {
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
     }
     
@@ -75,15 +136,26 @@ public class UsuarioDAO {
      */
     public boolean delete(int idUsuario) {
         String sql = "DELETE FROM Usuario WHERE idUsuario = ?";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idUsuario);
             
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            System.err.println("Error deleting user: " + e.getMessage());
+            LOG.error("Error deleting user: {}", e.getMessage());
             return false;
+        } finally {
+            try {
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
     }
     
@@ -94,16 +166,29 @@ public class UsuarioDAO {
      */
     public Usuario findById(int idUsuario) {
         String sql = "SELECT * FROM Usuario WHERE idUsuario = ?";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idUsuario);
             
-            ResultSet rs = stmt.executeQuery();
+            rs = stmt.executeQuery();
             if (rs.next()) {
-                return extractUserFromResultSet(rs);
+                return MAPPER.map(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error finding user by ID: " + e.getMessage());
+            LOG.error("Error finding user by ID: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
         return null;
     }
@@ -114,17 +199,33 @@ public class UsuarioDAO {
      * @return The user if found, null otherwise
      */
     public Usuario findByDni(String dni) {
+        if (!DniFilter.usuarios().mightContain(dni)) {
+            return null; // Certainly not registered; no query needed
+        }
         String sql = "SELECT * FROM Usuario WHERE dni = ?";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setString(1, dni);
             
-            ResultSet rs = stmt.executeQuery();
+            rs = stmt.executeQuery();
             if (rs.next()) {
-                return extractUserFromResultSet(rs);
+                return MAPPER.map(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error finding user by DNI: " + e.getMessage());
+            LOG.error("Error finding user by DNI: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
         return null;
     }
@@ -137,20 +238,33 @@ public class UsuarioDAO {
      */
     public Usuario authenticate(String dni, String contrasena) {
         String sql = "SELECT * FROM Usuario WHERE dni = ? AND contrasena = ?";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setString(1, dni);
             stmt.setString(2, contrasena);
             
-            ResultSet rs = stmt.executeQuery();
+            rs = stmt.executeQuery();
             if (rs.next()) {
-                Usuario usuario = extractUserFromResultSet(rs);
+                Usuario usuario = MAPPER.map(rs);
                 // Actualizar último login
                 updateLastLogin(usuario.getIdUsuario());
                 return usuario;
             }
         } catch (SQLException e) {
-            System.err.println("Error authenticating user: " + e.getMessage());
+            LOG.error("Error authenticating user: {}", e.getMessage());
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
         return null;
     }
@@ -161,55 +275,90 @@ public class UsuarioDAO {
      * @return true if successful, false otherwise
      */
     public boolean updateLastLogin(int idUsuario) {
-        String sql = "UPDATE Usuario SET UltimoAcceso = GETDATE() WHERE idUsuario = ?";
+        String sql = "UPDATE Usuario SET UltimoAcceso = " + DatabaseConnection.getDialect().currentTimestamp() + " WHERE idUsuario = ?";
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql);
             stmt.setInt(1, idUsuario);
             
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating last login: " + e.getMessage());
+            LOG.error("Error updating last login: {}", e.getMessage());
             return false;
+        } finally {
+            try {
+                if (stmt != null) stmt.close();
+                if (conn != null) conn.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing database resources", e);
+            }
         }
     }
     
     /**
-     * Get all users from the database
+     * Get all users from the database.
+     * Holds the whole table in memory; for large tables use
+     * {@link #streamAll()} or {@link #forEachAll(Consumer)}.
      * @return A list of all users
      */
     public List<Usuario> findAll() {
         List<Usuario> usuarios = new ArrayList<>();
-        String sql = "SELECT * FROM Usuario";
+        forEachAll(usuarios::add);
+        return usuarios;
+    }
+    
+    /**
+     * Stream all users without loading the table into memory.
+     * The stream keeps a database connection until it is closed:
+     * <pre>
+     *     try (Stream&lt;Usuario&gt; usuarios = dao.streamAll()) { ... }
+     * </pre>
+     * @return A lazily read stream of users
+     * @throws SQLException if the query cannot be started
+     */
+    public Stream<Usuario> streamAll() throws SQLException {
+        return StreamingQuery.stream("SELECT * FROM Usuario", MAPPER);
+    }
+    
+    /**
+     * Pass every user to a consumer as rows arrive from the database
+     * @param consumer Receives each user
+     * @return The number of users read, or -1 if the query failed
+     */
+    public int forEachAll(Consumer<? super Usuario> consumer) {
         try {
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                usuarios.add(extractUserFromResultSet(rs));
-            }
+            return StreamingQuery.forEach("SELECT * FROM Usuario", MAPPER, consumer);
         } catch (SQLException e) {
-            System.err.println("Error finding all users: " + e.getMessage());
+            LOG.error("Error reading all users: {}", e.getMessage());
+            return -1;
         }
-        return usuarios;
     }
     
     /**
-     * Extract a user from a result set
-     * @param rs The result set to extract from
-     * @return The extracted user
-     * @throws SQLException If an error occurs
+     * Pass the DNI of every user to a consumer, reading only that column
+     * @param consumer Receives each DNI
+     * @return The number of DNIs read
+     * @throws SQLException if the query fails
      */
-    private Usuario extractUserFromResultSet(ResultSet rs) throws SQLException {
-        Usuario usuario = new Usuario();
-        usuario.setIdUsuario(rs.getInt("idUsuario"));
-        usuario.setNombre(rs.getString("nombre"));
-        usuario.setApellido(rs.getString("apellido"));
-        usuario.setCorreo(rs.getString("correo"));
-        usuario.setDni(rs.getString("dni"));
-        usuario.setRol(rs.getString("rol"));
-        usuario.setContrasena(rs.getString("contrasena"));
-        usuario.setUltimoAcceso(rs.getTimestamp("UltimoAcceso"));
-        return usuario;
+    public int forEachDni(Consumer<String> consumer) throws SQLException {
+        return StreamingQuery.forEach("SELECT dni FROM Usuario", DNI_MAPPER, u -> consumer.accept(u.getDni()));
     }
+    
+    /**
+     * Reads the DNIs of the given users, for the DNI filter
+     * @param ids The IDs to look up
+     * @return The DNIs of the users that exist
+     * @throws SQLException if a query fails
+     */
+    List<String> findDnisByIds(Collection<Integer> ids) throws SQLException {
+        List<String> dnis = new ArrayList<>();
+        MultiGet.findByIds("Usuario", "idUsuario", ids, ID_DNI_MAPPER, Usuario::getIdUsuario)
+            .values().forEach(u -> dnis.add(u.getDni()));
+        return dnis;
+    }
+    
 } 
\ No newline at end of file
@@ -0,0 +1,331 @@
+package model.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import util.Logger;
+
+/**
+ * Tells in-process caches and open views which rows other clients changed.
+ * Every {@code db.changes.pollMs} the current SQL Server change tracking
+ * version is read; when it has moved, {@code CHANGETABLE(CHANGES ...)} is
+ * asked for the keys changed since the last poll in each tracked table
+ * that has listeners. An idle database costs one scalar query per poll.
+ * Each listener receives the changes of one poll as a single
+ * {@link ChangeSet}, so a bulk import of thousands of rows is one call
+ * that can be served with one batched read.
+ * <p>
+ * When the last version seen is older than what change tracking still
+ * retains (the client was offline longer than the retention period), the
+ * change set is a resync: listeners must drop everything they hold for the
+ * table. Changes made by this client are reported too.
+ * <p>
+ * Change tracking must be enabled on the database and on each table (see
+ * database/Create Database.sql). It is not available on the embedded
+ * database, where the notifier stays off.
+ */
+public final class ChangeNotifier {
+    private static final Logger LOG = Logger.getLogger(ChangeNotifier.class);
+
+    /**
+     * Kind of change reported for a row
+     */
+    public enum Operation {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    /**
+     * The rows of one table changed since the previous poll, each with its
+     * net operation, or a resync when the changes are no longer known
+     */
+    public static final class ChangeSet {
+        private static final ChangeSet RESYNC = new ChangeSet(Collections.emptyMap(), true);
+
+        private final Map<Integer, Operation> operations;
+        private final boolean resync;
+
+        private ChangeSet(Map<Integer, Operation> operations, boolean resync) {
+            this.operations = operations;
+            this.resync = resync;
+        }
+
+        /**
+         * @return true if changes were lost and every row of the table must be forgotten
+         */
+        public boolean isResync() {
+            return resync;
+        }
+
+        /**
+         * @return The primary keys of the changed rows; empty for a resync
+         */
+        public Set<Integer> getIds() {
+            return Collections.unmodifiableSet(operations.keySet());
+        }
+
+        /**
+         * @param operation The operation
+         * @return The primary keys of the rows with that net operation
+         */
+        public List<Integer> getIds(Operation operation) {
+            List<Integer> ids = new ArrayList<>();
+            operations.forEach((id, op) -> {
+                if (op == operation) {
+                    ids.add(id);
+                }
+            });
+            return ids;
+        }
+
+        /**
+         * @param id A primary key
+         * @return What happened to the row, or null if it did not change
+         */
+        public Operation getOperation(int id) {
+            return operations.get(id);
+        }
+
+        /**
+         * @return Number of changed rows
+         */
+        public int size() {
+            return operations.size();
+        }
+    }
+
+    /**
+     * Receives row changes. Called on the notifier thread; Swing listeners
+     * must hand off to the EDT.
+     */
+    public interface Listener {
+        /**
+         * @param table The table, e.g. {@code Campana}
+         * @param changes The rows changed since the previous poll; never empty
+         */
+        void tableChanged(String table, ChangeSet changes);
+    }
+
+    private static final Map<String, String> KEY_COLUMNS = new LinkedHashMap<>();
+    static {
+        KEY_COLUMNS.put("Campana", "idCampana");
+        KEY_COLUMNS.put("Actividad", "idActividad");
+        KEY_COLUMNS.put("Participante", "idParticipante");
+        KEY_COLUMNS.put("RegistroParticipacion", "idRegistro");
+        KEY_COLUMNS.put("Usuario", "idUsuario");
+    }
+
+    private static final ConcurrentHashMap<String, CopyOnWriteArrayList<Listener>> LISTENERS = new ConcurrentHashMap<>();
+    private static final Object LOCK = new Object();
+
+    private static final Set<String> TRACKED = ConcurrentHashMap.newKeySet();
+
+    private static ScheduledExecutorService scheduler; // Guarded by LOCK
+    private static long lastVersion = -1; // Only used on the notifier thread
+    private static volatile long pollMs = 5000;
+    private static volatile long lastPollAt;
+
+    private ChangeNotifier() {
+    }
+
+    /**
+     * Starts polling; calling it again has no effect
+     */
+    public static void start() {
+        if (DatabaseConnection.getDialect().isEmbedded()) {
+            LOG.info("Change notifications disabled: not supported by the embedded database");
+            return;
+        }
+        synchronized (LOCK) {
+            if (scheduler != null) {
+                return;
+            }
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "db-changes");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        scheduleNext(0);
+    }
+
+    /**
+     * Stops polling
+     */
+    public static void stop() {
+        synchronized (LOCK) {
+            if (scheduler == null) {
+                return;
+            }
+            scheduler.shutdownNow();
+            scheduler = null;
+            TRACKED.clear();
+        }
+    }
+
+    /**
+     * Tells whether changes to a table currently reach the listeners: the
+     * notifier is running, change tracking is enabled on the table and the
+     * last poll succeeded within three poll intervals. Changes made while
+     * this is true are delivered within about one poll interval.
+     * @param table The table, e.g. {@code Usuario}
+     * @return true if changes to the table are being delivered
+     */
+    public static boolean isTracking(String table) {
+        return TRACKED.contains(table) && System.currentTimeMillis() - lastPollAt <= 3 * pollMs;
+    }
+
+    /**
+     * Registers a listener for one table
+     * @param table One of Campana, Actividad, Participante, RegistroParticipacion, Usuario
+     * @param listener The listener
+     */
+    public static void addListener(String table, Listener listener) {
+        if (!KEY_COLUMNS.containsKey(table)) {
+            throw new IllegalArgumentException("Table without change tracking: " + table);
+        }
+        LISTENERS.computeIfAbsent(table, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public static void removeListener(String table, Listener listener) {
+        List<Listener> listeners = LISTENERS.get(table);
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    private static void tick() {
+        try {
+            pollMs = Math.max(500, DatabaseConnection.getConfig().getInt("db.changes.pollMs", 5000));
+            if (DatabaseHealthMonitor.isAvailable() && !poll()) {
+                LOG.warn("Change tracking is not enabled on the database; change notifications stopped");
+                stop();
+                return;
+            }
+        } catch (SQLException | RuntimeException e) {
+            LOG.debug("Change poll failed, retrying in {}ms: {}", pollMs, e.getMessage());
+        }
+        scheduleNext(pollMs);
+    }
+
+    /**
+     * Reads and dispatches the changes since the last poll
+     * @return false if change tracking is not enabled on the database
+     */
+    private static boolean poll() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            Long current = queryVersion(conn, "SELECT CHANGE_TRACKING_CURRENT_VERSION()", null);
+            if (current == null) {
+                return false;
+            }
+            if (lastVersion < 0) {
+                for (String table : KEY_COLUMNS.keySet()) {
+                    if (minValidVersion(conn, table) != null) {
+                        TRACKED.add(table);
+                    }
+                }
+                lastVersion = current; // Caches loaded from now on are current
+            } else if (current != lastVersion) {
+                for (Map.Entry<String, String> entry : KEY_COLUMNS.entrySet()) {
+                    List<Listener> listeners = LISTENERS.get(entry.getKey());
+                    if (listeners != null && !listeners.isEmpty()) {
+                        pollTable(conn, entry.getKey(), entry.getValue(), current, listeners);
+                    }
+                }
+                lastVersion = current;
+            }
+            lastPollAt = System.currentTimeMillis();
+            return true;
+        }
+    }
+
+    private static void pollTable(Connection conn, String table, String keyColumn, long current,
+                                  List<Listener> listeners) throws SQLException {
+        Long minValid = minValidVersion(conn, table);
+        if (minValid == null) {
+            TRACKED.remove(table); // Change tracking not enabled on this table
+            return;
+        }
+        if (lastVersion < minValid) {
+            dispatch(listeners, table, ChangeSet.RESYNC);
+            return;
+        }
+        Map<Integer, Operation> operations = new LinkedHashMap<>();
+        String sql = "SELECT ct." + keyColumn + ", ct.SYS_CHANGE_OPERATION "
+            + "FROM CHANGETABLE(CHANGES dbo." + table + ", ?) AS ct "
+            + "WHERE ct.SYS_CHANGE_VERSION <= ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, lastVersion);
+            stmt.setLong(2, current);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    operations.put(rs.getInt(1), operation(rs.getString(2)));
+                }
+            }
+        }
+        if (!operations.isEmpty()) {
+            dispatch(listeners, table, new ChangeSet(operations, false));
+        }
+    }
+
+    private static Long minValidVersion(Connection conn, String table) throws SQLException {
+        return queryVersion(conn, "SELECT CHANGE_TRACKING_MIN_VALID_VERSION(OBJECT_ID(?))", "dbo." + table);
+    }
+
+    private static Long queryVersion(Connection conn, String sql, String parameter) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (parameter != null) {
+                stmt.setString(1, parameter);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                long version = rs.getLong(1);
+                return rs.wasNull() ? null : version;
+            }
+        }
+    }
+
+    private static Operation operation(String code) {
+        switch (code) {
+            case "I":
+                return Operation.INSERT;
+            case "D":
+                return Operation.DELETE;
+            default:
+                return Operation.UPDATE;
+        }
+    }
+
+    private static void dispatch(List<Listener> listeners, String table, ChangeSet changes) {
+        for (Listener listener : listeners) {
+            try {
+                listener.tableChanged(table, changes);
+            } catch (RuntimeException e) {
+                LOG.warn("Change listener failed for {} ({} rows): {}", table, changes.size(), e.getMessage());
+            }
+        }
+    }
+
+    private static void scheduleNext(long delayMs) {
+        synchronized (LOCK) {
+            if (scheduler != null && !scheduler.isShutdown()) {
+                scheduler.schedule(ChangeNotifier::tick, delayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
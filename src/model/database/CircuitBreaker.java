@@ -0,0 +1,159 @@
+package model.database;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import util.Logger;
+
+/**
+ * Circuit breaker for database connection attempts.
+ * After a run of consecutive failures the circuit opens and attempts fail
+ * fast. Once the open period has elapsed a single half-open probe is let
+ * through: success closes the circuit and notifies listeners that the
+ * database has recovered, failure opens it again.
+ */
+public class CircuitBreaker {
+    private static final Logger LOG = Logger.getLogger(CircuitBreaker.class);
+
+    /**
+     * Breaker states
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Receives breaker state changes
+     */
+    public interface Listener {
+        void stateChanged(State previous, State current);
+    }
+
+    private int failureThreshold;
+    private long openDurationMs;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    /**
+     * @param failureThreshold Consecutive failures that open the circuit
+     * @param openDurationMs Time the circuit stays open before a probe is allowed
+     */
+    public CircuitBreaker(int failureThreshold, long openDurationMs) {
+        configure(failureThreshold, openDurationMs);
+    }
+
+    /**
+     * Changes the thresholds without resetting the current state or listeners
+     * @param failureThreshold Consecutive failures that open the circuit
+     * @param openDurationMs Time the circuit stays open before a probe is allowed
+     */
+    public synchronized void configure(int failureThreshold, long openDurationMs) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationMs = openDurationMs;
+    }
+
+    /**
+     * Checks whether an attempt may go to the database. When the open period
+     * has elapsed the first caller becomes the half-open probe.
+     * @return true if the attempt may proceed, false to fail fast
+     */
+    public boolean allowRequest() {
+        State previous;
+        synchronized (this) {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case HALF_OPEN:
+                    return false; // A probe is already in flight
+                default:
+                    if (System.currentTimeMillis() - openedAt < openDurationMs) {
+                        return false;
+                    }
+                    previous = state;
+                    state = State.HALF_OPEN;
+            }
+        }
+        fireStateChanged(previous, State.HALF_OPEN);
+        return true;
+    }
+
+    /**
+     * Records a successful attempt and closes the circuit
+     */
+    public void recordSuccess() {
+        State previous;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            if (state == State.CLOSED) {
+                return;
+            }
+            previous = state;
+            state = State.CLOSED;
+        }
+        fireStateChanged(previous, State.CLOSED);
+    }
+
+    /**
+     * Records a failed attempt; opens the circuit when the threshold is
+     * reached or when the half-open probe fails
+     */
+    public void recordFailure() {
+        State previous;
+        synchronized (this) {
+            consecutiveFailures++;
+            if (state == State.OPEN || (state == State.CLOSED && consecutiveFailures < failureThreshold)) {
+                return;
+            }
+            previous = state;
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+        fireStateChanged(previous, State.OPEN);
+    }
+
+    /**
+     * @return The current state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return Milliseconds until a probe will be allowed, 0 if not open
+     */
+    public synchronized long getRemainingOpenMs() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openDurationMs - (System.currentTimeMillis() - openedAt));
+    }
+
+    /**
+     * Registers a listener for state changes
+     * @param listener The listener to add
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener
+     * @param listener The listener to remove
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireStateChanged(State previous, State current) {
+        for (Listener listener : listeners) {
+            try {
+                listener.stateChanged(previous, current);
+            } catch (RuntimeException e) {
+                LOG.warn("Circuit breaker listener failed", e);
+            }
+        }
+    }
+}
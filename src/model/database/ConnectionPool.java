@@ -0,0 +1,369 @@
+package model.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import util.Logger;
+
+/**
+ * Bounded pool of physical database connections.
+ * Keeps a few warm connections idle, validates connections that have been
+ * idle for a while before handing them out, evicts connections that stay
+ * idle for too long and reports connections that are never returned.
+ */
+public class ConnectionPool {
+    private static final Logger LOG = Logger.getLogger(ConnectionPool.class);
+
+    /**
+     * Opens new physical connections for the pool
+     */
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    /**
+     * Connections used within this window are handed out without calling isValid()
+     */
+    private static final long VALIDATION_BYPASS_MS = 500;
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final int minIdle;
+    private final long connectionTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long leakDetectionThresholdMs;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final StatementCacheMetrics statementCacheMetrics = new StatementCacheMetrics();
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+    private volatile long lastWriteAt;
+
+    /**
+     * Creates a pool and schedules the background housekeeper, which also
+     * opens the first {@code minIdle} connections
+     * @param factory Opens physical connections
+     * @param maxSize Maximum number of physical connections
+     * @param minIdle Number of warm connections kept idle
+     * @param connectionTimeoutMs How long a caller waits for a free connection
+     * @param idleTimeoutMs Idle time after which surplus connections are closed
+     * @param leakDetectionThresholdMs Checkout time after which a leak is reported (0 disables)
+     * @param validationTimeoutSeconds Timeout passed to Connection.isValid
+     * @param statementCacheSize Prepared statements cached per connection (0 disables the cache)
+     */
+    public ConnectionPool(ConnectionFactory factory, int maxSize, int minIdle, long connectionTimeoutMs,
+                          long idleTimeoutMs, long leakDetectionThresholdMs, int validationTimeoutSeconds,
+                          int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        this.connectionTimeoutMs = connectionTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.leakDetectionThresholdMs = leakDetectionThresholdMs;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(30000, leakDetectionThresholdMs > 0 ? leakDetectionThresholdMs / 2 : 30000));
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool. Closing the returned connection
+     * gives it back to the pool.
+     * @return A validated connection
+     * @throws SQLException if no connection becomes available in time or one cannot be opened
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectionTimeoutMs);
+        try {
+            if (!permits.tryAcquire(connectionTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Timed out after " + connectionTimeoutMs
+                    + "ms waiting for a database connection (" + borrowed.size() + "/" + maxSize + " in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled = acquire(deadline);
+            pooled.markBorrowed(leakDetectionThresholdMs > 0 ? new Throwable("Connection borrowed here") : null);
+            borrowed.add(pooled);
+            return pooled.newLogicalConnection();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes an idle connection or opens a new one while the pool is below its maximum size
+     */
+    private PooledConnection acquire(long deadline) throws SQLException {
+        while (true) {
+            PooledConnection pooled = idle.pollFirst();
+            if (pooled != null) {
+                if (isUsable(pooled)) {
+                    return pooled;
+                }
+                discard(pooled);
+                continue;
+            }
+
+            if (reserveSlot()) {
+                return openConnection();
+            }
+
+            // Every slot is taken by a connection that is being opened or returned; wait for it
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new SQLTransientConnectionException("Timed out waiting for a database connection");
+            }
+            try {
+                pooled = idle.pollFirst(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            }
+            if (pooled != null) {
+                if (isUsable(pooled)) {
+                    return pooled;
+                }
+                discard(pooled);
+            }
+        }
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = totalConnections.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (totalConnections.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Opens a physical connection for a slot that was already reserved
+     */
+    private PooledConnection openConnection() throws SQLException {
+        try {
+            return new PooledConnection(this, factory.create(), statementCacheSize, statementCacheMetrics);
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.getLastUsedAt() < VALIDATION_BYPASS_MS) {
+            return true;
+        }
+        try {
+            return pooled.getPhysical().isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a connection to the pool. Called by the logical connection's close().
+     * @param pooled The connection being returned
+     */
+    void release(PooledConnection pooled) {
+        if (!borrowed.remove(pooled)) {
+            return;
+        }
+
+        try {
+            if (pooled.isLeakReported()) {
+                LOG.info("Previously reported leaked connection was returned after {}ms",
+                    System.currentTimeMillis() - pooled.getBorrowedAt());
+            }
+
+            Connection physical = pooled.getPhysical();
+            if (closed || physical.isClosed()) {
+                discard(pooled);
+                return;
+            }
+
+            // Leave no transaction state behind for the next borrower
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            physical.clearWarnings();
+
+            pooled.markReturned();
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        pooled.closePhysical();
+        totalConnections.decrementAndGet();
+    }
+
+    /**
+     * Periodic maintenance: idle eviction, refilling to minIdle and leak detection
+     */
+    private void houseKeep() {
+        if (closed) {
+            return;
+        }
+        try {
+            evictIdleConnections();
+            fillToMinIdle();
+            detectLeaks();
+        } catch (RuntimeException e) {
+            LOG.error("Connection pool housekeeping failed", e);
+        }
+    }
+
+    private void evictIdleConnections() {
+        if (idleTimeoutMs <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && idle.size() > minIdle) {
+            PooledConnection pooled = it.next();
+            if (now - pooled.getLastUsedAt() > idleTimeoutMs && idle.remove(pooled)) {
+                discard(pooled);
+            }
+        }
+    }
+
+    /**
+     * Opens the warm connections right away on the calling thread instead of
+     * waiting for the housekeeper, so that the first borrower finds the
+     * driver loaded and the handshake already done
+     * @throws SQLException if a connection cannot be opened
+     */
+    public void prewarm() throws SQLException {
+        while (!closed && idle.size() < Math.max(1, minIdle) && reserveSlot()) {
+            idle.offerLast(openConnection());
+        }
+    }
+
+    private void fillToMinIdle() {
+        while (!closed && idle.size() < minIdle && reserveSlot()) {
+            try {
+                idle.offerLast(openConnection());
+            } catch (SQLException e) {
+                LOG.warn("Could not open warm connection: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        if (leakDetectionThresholdMs <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : borrowed) {
+            long heldFor = now - pooled.getBorrowedAt();
+            if (!pooled.isLeakReported() && heldFor > leakDetectionThresholdMs) {
+                pooled.setLeakReported(true);
+                LOG.warn("Possible connection leak: connection held for " + heldFor + "ms", pooled.getBorrowSite());
+            }
+        }
+    }
+
+    /**
+     * Closes idle connections and stops the housekeeper. Borrowed connections
+     * are closed as they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    /**
+     * Notes that a data-modifying statement was prepared on one of this pool's connections
+     */
+    void recordWrite() {
+        lastWriteAt = System.currentTimeMillis();
+    }
+
+    /**
+     * @return Time of the last INSERT/UPDATE/DELETE/MERGE prepared on this pool, 0 if none
+     */
+    public long getLastWriteAt() {
+        return lastWriteAt;
+    }
+
+    /**
+     * @return Number of connections currently checked out
+     */
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * @return Number of idle connections ready to be borrowed
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * @return Number of physical connections owned by the pool
+     */
+    public int getTotalCount() {
+        return totalConnections.get();
+    }
+
+    /**
+     * @return Hit, miss and eviction counters of the per-connection statement caches
+     */
+    public StatementCacheMetrics getStatementCacheMetrics() {
+        return statementCacheMetrics;
+    }
+
+    /**
+     * @return Maximum number of physical connections
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
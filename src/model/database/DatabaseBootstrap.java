@@ -0,0 +1,79 @@
+package model.database;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import util.Logger;
+
+/**
+ * Prepares the database layer in the background while the first screen is
+ * shown: resolves the configuration, loads the JDBC driver and opens the
+ * warm connections of the pool, so the first login does not pay for the
+ * driver load and the TLS/login handshake. Once the bootstrap has finished,
+ * successfully or not, the {@link DatabaseHealthMonitor} heartbeat starts.
+ */
+public final class DatabaseBootstrap {
+    private static final Logger LOG = Logger.getLogger(DatabaseBootstrap.class);
+
+    private static final AtomicReference<CompletableFuture<Void>> READY = new AtomicReference<>();
+
+    private DatabaseBootstrap() {
+    }
+
+    /**
+     * Starts the bootstrap on a background thread. Calling it again returns
+     * the same future.
+     * @return A future completed once the pool has its warm connections
+     */
+    public static CompletableFuture<Void> start() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!READY.compareAndSet(null, future)) {
+            return READY.get();
+        }
+        runInBackground(future, false);
+        return future;
+    }
+
+    /**
+     * Reloads the configuration without restarting the application and
+     * warms the new pool on a background thread
+     * @return A future completed once the new pool is ready
+     */
+    public static CompletableFuture<Void> reload() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        READY.set(future);
+        runInBackground(future, true);
+        return future;
+    }
+
+    /**
+     * @return true once the driver is loaded and the pool has been warmed
+     */
+    public static boolean isReady() {
+        CompletableFuture<Void> future = READY.get();
+        return future != null && future.isDone() && !future.isCompletedExceptionally();
+    }
+
+    private static void runInBackground(CompletableFuture<Void> future, boolean reload) {
+        Thread thread = new Thread(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                if (reload) {
+                    DatabaseConnection.reload();
+                }
+                DatabaseConnection.getPool().prewarm();
+                LOG.info("Database ready in {}ms", System.currentTimeMillis() - start);
+                future.complete(null);
+            } catch (SQLException | RuntimeException e) {
+                // Not fatal: getConnection() retries and reports the error when it is actually needed
+                LOG.warn("Database bootstrap failed: {}", e.getMessage());
+                future.completeExceptionally(new CompletionException(e));
+            }
+            DatabaseHealthMonitor.start();
+            ChangeNotifier.start();
+        }, "db-bootstrap");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,207 @@
+package model.database;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import util.Logger;
+
+/**
+ * Immutable snapshot of the database settings.
+ * Settings are layered, each source overriding the previous one:
+ * <ol>
+ *   <li>the classpath resource {@code config/DatabaseConfig.properties} (or
+ *       {@code database.properties}), falling back to the legacy
+ *       {@code src/config/DatabaseConfig.properties} file</li>
+ *   <li>the file named by the {@code db.config} system property</li>
+ *   <li>environment variables: {@code db.pool.maxSize} is read from {@code DB_POOL_MAXSIZE}</li>
+ *   <li>system properties with the same key, e.g. {@code -Ddb.url=...}</li>
+ * </ol>
+ */
+public final class DatabaseConfig {
+    private static final Logger LOG = Logger.getLogger(DatabaseConfig.class);
+
+    private static final String[] CLASSPATH_RESOURCES = { "config/DatabaseConfig.properties", "database.properties" };
+    private static final String LEGACY_FILE = "src/config/DatabaseConfig.properties";
+    private static final String CONFIG_FILE_PROPERTY = "db.config";
+    private static final String KEY_PREFIX = "db.";
+
+    private final Properties properties;
+    private final String source;
+
+    private DatabaseConfig(Properties properties, String source) {
+        this.properties = properties;
+        this.source = source;
+    }
+
+    /**
+     * Resolves the configuration from every source
+     * @return the resolved configuration
+     * @throws IOException if an explicitly configured file cannot be read
+     */
+    public static DatabaseConfig load() throws IOException {
+        Properties props = new Properties();
+        StringBuilder source = new StringBuilder();
+
+        if (!loadClasspath(props, source)) {
+            Path legacy = Paths.get(LEGACY_FILE);
+            if (Files.isReadable(legacy)) {
+                try (InputStream in = new FileInputStream(legacy.toFile())) {
+                    props.load(in);
+                }
+                append(source, legacy.toString());
+            }
+        }
+
+        String explicitFile = System.getProperty(CONFIG_FILE_PROPERTY);
+        if (explicitFile != null && !explicitFile.trim().isEmpty()) {
+            try (InputStream in = new FileInputStream(explicitFile.trim())) {
+                props.load(in);
+            }
+            append(source, explicitFile.trim());
+        }
+
+        boolean fromEnvironment = false;
+        for (String key : props.stringPropertyNames().toArray(new String[0])) {
+            fromEnvironment |= overrideFromEnvironment(props, key);
+        }
+        for (String key : new String[] { "db.url", "db.user", "db.password", "db.driver" }) {
+            fromEnvironment |= overrideFromEnvironment(props, key);
+        }
+        if (fromEnvironment) {
+            append(source, "environment");
+        }
+
+        boolean fromSystem = false;
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith(KEY_PREFIX) && !key.equals(CONFIG_FILE_PROPERTY)) {
+                props.setProperty(key, System.getProperty(key));
+                fromSystem = true;
+            }
+        }
+        if (fromSystem) {
+            append(source, "system properties");
+        }
+
+        return new DatabaseConfig(props, source.length() == 0 ? "defaults" : source.toString());
+    }
+
+    private static boolean loadClasspath(Properties props, StringBuilder source) throws IOException {
+        ClassLoader loader = DatabaseConfig.class.getClassLoader();
+        for (String resource : CLASSPATH_RESOURCES) {
+            try (InputStream in = loader.getResourceAsStream(resource)) {
+                if (in != null) {
+                    props.load(in);
+                    append(source, "classpath:" + resource);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean overrideFromEnvironment(Properties props, String key) {
+        String value = System.getenv(key.toUpperCase().replace('.', '_'));
+        if (value == null) {
+            return false;
+        }
+        props.setProperty(key, value);
+        return true;
+    }
+
+    private static void append(StringBuilder source, String part) {
+        if (source.length() > 0) {
+            source.append(", ");
+        }
+        source.append(part);
+    }
+
+    /**
+     * Gets a raw setting
+     * @param key The property key, e.g. db.url
+     * @return the value, or null if not set
+     */
+    public String get(String key) {
+        String value = properties.getProperty(key);
+        return value == null ? null : value.trim();
+    }
+
+    /**
+     * Gets an integer setting
+     * @param key The property key
+     * @param defaultValue Value used when the key is missing or invalid
+     * @return the value
+     */
+    public int getInt(String key, int defaultValue) {
+        String value = get(key);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid value for {}: {}, using {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @return true when {@code db.embedded=true} selects the in-process database
+     */
+    public boolean isEmbedded() {
+        return Boolean.parseBoolean(get("db.embedded"));
+    }
+
+    public String getUrl() {
+        if (isEmbedded()) {
+            return get("db.embedded.url") != null ? get("db.embedded.url") : EmbeddedDatabase.DEFAULT_URL;
+        }
+        return get("db.url");
+    }
+
+    public String getUser() {
+        if (isEmbedded()) {
+            return get("db.embedded.user") != null ? get("db.embedded.user") : "sa";
+        }
+        return get("db.user");
+    }
+
+    public String getPassword() {
+        if (isEmbedded()) {
+            return getPassword("db.embedded.password") != null ? getPassword("db.embedded.password") : "";
+        }
+        return getPassword("db.password");
+    }
+
+    /**
+     * Gets a password setting, untrimmed
+     * @param key The property key
+     * @return the value, or null if not set
+     */
+    public String getPassword(String key) {
+        return properties.getProperty(key);
+    }
+
+    public String getDriver() {
+        if (isEmbedded()) {
+            return EmbeddedDatabase.DRIVER;
+        }
+        return get("db.driver");
+    }
+
+    /**
+     * @return Where the settings came from, for diagnostics
+     */
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        // Never print the password
+        return "DatabaseConfig{url=" + getUrl() + ", user=" + getUser() + ", source=" + source + "}";
+    }
+}
@@ -1,120 +1,568 @@
 package model.database;
 
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Properties;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import util.Logger;
 
 /**
- * Class for handling database connections to SQL Server
+ * Class for handling database connections to SQL Server.
+ * Connections are borrowed from a shared {@link ConnectionPool}; closing
+ * them returns them to the pool. A {@link CircuitBreaker} makes callers fail
+ * fast while the database is known to be down, and
+ * {@link #getConnectionAsync()} retries with jittered exponential backoff
+ * off the calling thread.
+ * <p>
+ * Read-only work can use {@link #getReadConnection()}, which is served by a
+ * separately configured endpoint ({@code db.read.*}) such as a readable
+ * secondary or a snapshot-isolation connection. Reads go to the primary
+ * instead for a short window after this application prepares an INSERT,
+ * UPDATE, DELETE or MERGE, so a screen always sees what it just wrote.
+ * <p>
+ * Nothing is loaded when the class is first touched: the configuration,
+ * the driver and the pool are set up on first use, normally ahead of time
+ * by {@link DatabaseBootstrap}, and can be replaced with {@link #reload()}.
+ * <p>
+ * With {@code db.embedded=true} (or a {@code jdbc:h2:} URL) the pool points
+ * at an in-process H2 database created from the project's SQL scripts; SQL
+ * that differs between the two engines goes through {@link #getDialect()}.
  */
 public class DatabaseConnection {
-    private static final String CONFIG_FILE = "src/config/DatabaseConfig.properties";
-    private static String DRIVER;
-    private static String URL;
-    private static String USER;
-    private static String PASSWORD;
-    private static final int MAX_RETRIES = 3;
-    private static final int RETRY_DELAY_MS = 1000;
-    
+    private static final Logger LOG = Logger.getLogger(DatabaseConnection.class);
+
+    private static final Object INIT_LOCK = new Object();
+    private static volatile DatabaseConfig config;
+    private static volatile ConnectionPool pool;
+    private static volatile ConnectionPool readPool;
+    private static volatile Dialect dialect;
+    private static volatile long readYourWritesMs = 5000;
+    private static final CircuitBreaker BREAKER = new CircuitBreaker(3, 10000);
+    // Separate breaker for the read-only endpoint: while it is open, reads go straight to the primary
+    private static final CircuitBreaker READ_BREAKER = new CircuitBreaker(1, 30000);
+    private static final ScheduledExecutorService ASYNC_EXECUTOR = Executors.newScheduledThreadPool(2, r -> {
+        Thread thread = new Thread(r, "db-async");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile int maxRetries = 3;
+    private static volatile long retryBaseDelayMs = 250;
+    private static volatile long retryMaxDelayMs = 4000;
+
     static {
+        BREAKER.addListener((previous, current) -> {
+            if (current == CircuitBreaker.State.OPEN) {
+                LOG.error("Database marked as unavailable, probing again in {}ms", BREAKER.getRemainingOpenMs());
+                scheduleProbe();
+            } else if (current == CircuitBreaker.State.CLOSED) {
+                LOG.info("Database available again");
+            }
+        });
+        READ_BREAKER.addListener((previous, current) -> {
+            if (current == CircuitBreaker.State.OPEN) {
+                LOG.warn("Read-only endpoint unavailable, reading from the primary for {}ms", READ_BREAKER.getRemainingOpenMs());
+            } else if (current == CircuitBreaker.State.CLOSED) {
+                LOG.info("Read-only endpoint available again");
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            closePools(pool, readPool);
+        }, "connection-pool-shutdown"));
+    }
+
+    /**
+     * Returns the current pool, loading the configuration and creating the
+     * pool on first use
+     */
+    private static ConnectionPool pool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current != null) {
+            return current;
+        }
+        synchronized (INIT_LOCK) {
+            if (pool == null) {
+                install(loadConfig());
+            }
+            return pool;
+        }
+    }
+
+    private static DatabaseConfig loadConfig() throws SQLException {
         try {
-            Properties props = new Properties();
-            props.load(new FileInputStream(CONFIG_FILE));
-            
-            DRIVER = props.getProperty("db.driver");
-            URL = props.getProperty("db.url"); // Usar la URL completa del archivo de configuración
-            USER = props.getProperty("db.user");
-            PASSWORD = props.getProperty("db.password");
-            
-            // Cargar el driver
-            Class.forName(DRIVER);
-            System.out.println("✓ Database configuration loaded successfully");
-            System.out.println("URL: " + URL);
-            System.out.println("User: " + USER);
-        } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Error loading database configuration: " + e.getMessage());
-            e.printStackTrace();
+            return DatabaseConfig.load();
+        } catch (IOException e) {
+            throw new SQLException("Error loading database configuration: " + e.getMessage(), e);
         }
     }
-    
+
+    /**
+     * Loads the driver and creates a pool for the given configuration.
+     * Must be called while holding INIT_LOCK.
+     */
+    private static void install(DatabaseConfig newConfig) throws SQLException {
+        if (newConfig.getUrl() == null) {
+            throw new SQLException("No database URL configured (db.url), config source: " + newConfig.getSource());
+        }
+        if (newConfig.getDriver() != null) {
+            try {
+                Class.forName(newConfig.getDriver());
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("Database driver not found: " + newConfig.getDriver(), e);
+            }
+        }
+
+        Dialect newDialect = Dialect.forUrl(newConfig.getUrl());
+        if (newDialect.isEmbedded()) {
+            EmbeddedDatabase.initialize(newConfig);
+        }
+
+        maxRetries = Math.max(1, newConfig.getInt("db.retry.maxAttempts", 3));
+        retryBaseDelayMs = newConfig.getInt("db.retry.baseDelayMs", 250);
+        retryMaxDelayMs = newConfig.getInt("db.retry.maxDelayMs", 4000);
+        BREAKER.configure(
+            newConfig.getInt("db.breaker.failureThreshold", 3),
+            newConfig.getInt("db.breaker.openMs", 10000));
+        READ_BREAKER.configure(
+            newConfig.getInt("db.read.breaker.failureThreshold", 1),
+            newConfig.getInt("db.read.breaker.openMs", 30000));
+
+        ConnectionPool newPool = createPool(newConfig, "db.pool.", () -> openPhysicalConnection(newConfig));
+        ConnectionPool newReadPool = null;
+        if (!newDialect.isEmbedded()
+                && (newConfig.get("db.read.url") != null || newConfig.get("db.read.isolation") != null)) {
+            int isolation = isolationLevel(newConfig.get("db.read.isolation"));
+            newReadPool = createPool(newConfig, "db.read.pool.", () -> openReadConnection(newConfig, isolation));
+        }
+        readYourWritesMs = newConfig.getInt("db.read.readYourWritesMs", 5000);
+        readPool = newReadPool;
+        dialect = newDialect;
+        pool = newPool;
+        config = newConfig;
+        LOG.info("Database configuration loaded from {} ({}){}", newConfig.getSource(), newDialect.getName(),
+            newReadPool != null ? ", read-only endpoint enabled" : "");
+    }
+
     /**
-     * Gets a connection to the database with retry logic
+     * Creates a pool; settings under {@code prefix} fall back to the primary's db.pool.* values
+     */
+    private static ConnectionPool createPool(DatabaseConfig cfg, String prefix, ConnectionPool.ConnectionFactory factory) {
+        return new ConnectionPool(
+            factory,
+            cfg.getInt(prefix + "maxSize", cfg.getInt("db.pool.maxSize", 10)),
+            cfg.getInt(prefix + "minIdle", cfg.getInt("db.pool.minIdle", 2)),
+            cfg.getInt(prefix + "connectionTimeoutMs", cfg.getInt("db.pool.connectionTimeoutMs", 5000)),
+            cfg.getInt(prefix + "idleTimeoutMs", cfg.getInt("db.pool.idleTimeoutMs", 300000)),
+            cfg.getInt(prefix + "leakDetectionThresholdMs", cfg.getInt("db.pool.leakDetectionThresholdMs", 60000)),
+            cfg.getInt(prefix + "validationTimeoutSeconds", cfg.getInt("db.pool.validationTimeoutSeconds", 2)),
+            cfg.getInt(prefix + "statementCacheSize", cfg.getInt("db.pool.statementCacheSize", 50)));
+    }
+
+    /**
+     * Maps db.read.isolation to a JDBC isolation level. "snapshot" is SQL
+     * Server's SNAPSHOT level (SQLServerConnection.TRANSACTION_SNAPSHOT).
+     * @return the level, or -1 to keep the driver default
+     */
+    private static int isolationLevel(String name) {
+        if (name == null) {
+            return -1;
+        }
+        switch (name.toLowerCase()) {
+            case "snapshot":
+                return 4096;
+            case "read_uncommitted":
+                return Connection.TRANSACTION_READ_UNCOMMITTED;
+            case "read_committed":
+                return Connection.TRANSACTION_READ_COMMITTED;
+            case "repeatable_read":
+                return Connection.TRANSACTION_REPEATABLE_READ;
+            case "serializable":
+                return Connection.TRANSACTION_SERIALIZABLE;
+            default:
+                LOG.warn("Unknown db.read.isolation {}, using the driver default", name);
+                return -1;
+        }
+    }
+
+    private static void closePools(ConnectionPool... pools) {
+        for (ConnectionPool p : pools) {
+            if (p != null) {
+                p.close();
+            }
+        }
+    }
+
+    /**
+     * Stops the background tasks and closes both pools when the application
+     * exits. Connections must not be requested afterwards.
+     */
+    public static void shutdown() {
+        ASYNC_EXECUTOR.shutdownNow();
+        closePools(pool, readPool);
+    }
+
+    /**
+     * Re-reads the configuration and switches to a new pool built from it.
+     * Connections borrowed from the old pool keep working and are closed as
+     * they are returned.
+     * @throws SQLException if the new configuration is invalid; the old pool stays in use
+     */
+    public static void reload() throws SQLException {
+        DatabaseConfig newConfig = loadConfig();
+        ConnectionPool old;
+        ConnectionPool oldRead;
+        synchronized (INIT_LOCK) {
+            old = pool;
+            oldRead = readPool;
+            install(newConfig);
+        }
+        closePools(old, oldRead);
+    }
+
+    /**
+     * Opens a new physical connection for the pool
+     * @param config The configuration the pool was created with
      * @return Connection object
      * @throws SQLException if connection cannot be established
      */
+    private static Connection openPhysicalConnection(DatabaseConfig config) throws SQLException {
+        Connection connection = DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
+        LOG.debug("Database connection opened");
+        return connection;
+    }
+
+    /**
+     * Opens a physical connection to the read-only endpoint. URL and
+     * credentials default to the primary's.
+     */
+    private static Connection openReadConnection(DatabaseConfig config, int isolation) throws SQLException {
+        String url = config.get("db.read.url") != null ? config.get("db.read.url") : config.getUrl();
+        String user = config.get("db.read.user") != null ? config.get("db.read.user") : config.getUser();
+        String password = config.get("db.read.password") != null ? config.getPassword("db.read.password") : config.getPassword();
+        Connection connection = DriverManager.getConnection(url, user, password);
+        try {
+            connection.setReadOnly(true);
+            if (isolation >= 0) {
+                connection.setTransactionIsolation(isolation);
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        LOG.debug("Read-only database connection opened");
+        return connection;
+    }
+
+    /**
+     * Gets a pooled connection to the database. Fails fast without touching
+     * the network while the circuit breaker is open. Inside a
+     * {@link TransactionScope} the scope's connection is returned instead.
+     * @return Connection object; closing it returns it to the pool
+     * @throws SQLException if connection cannot be established
+     */
     public static Connection getConnection() throws SQLException {
-        SQLException lastException = null;
-        
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-            try {
-                System.out.println("🔄 Attempting database connection (attempt " + attempt + "/" + MAX_RETRIES + ")");
-                Connection connection = DriverManager.getConnection(URL, USER, PASSWORD);
-                System.out.println("✅ Database connection successful!");
-                return connection;
-            } catch (SQLException e) {
-                lastException = e;
-                System.err.println("❌ Connection attempt " + attempt + " failed: " + e.getMessage());
-                
-                if (attempt < MAX_RETRIES) {
-                    try {
-                        System.out.println("⏳ Waiting " + RETRY_DELAY_MS + "ms before retry...");
-                        Thread.sleep(RETRY_DELAY_MS);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        throw new SQLException("Connection interrupted", ie);
-                    }
-                }
+        Connection scoped = TransactionScope.currentConnection();
+        if (scoped != null) {
+            return scoped;
+        }
+        if (!BREAKER.allowRequest()) {
+            throw unavailable();
+        }
+        return borrow();
+    }
+
+    /**
+     * Gets a pooled connection without blocking the caller. Attempts run on a
+     * background thread and are retried with exponential backoff and jitter;
+     * the future fails immediately while the circuit breaker is open.
+     * @return A future completed with the connection; the caller must close it
+     */
+    public static CompletableFuture<Connection> getConnectionAsync() {
+        CompletableFuture<Connection> future = new CompletableFuture<>();
+        ASYNC_EXECUTOR.execute(() -> attemptAsync(future, 1, false));
+        return future;
+    }
+
+    /**
+     * Asynchronous variant of {@link #getReadConnection()}
+     * @return A future completed with the connection; the caller must close it
+     */
+    public static CompletableFuture<Connection> getReadConnectionAsync() {
+        CompletableFuture<Connection> future = new CompletableFuture<>();
+        ASYNC_EXECUTOR.execute(() -> attemptAsync(future, 1, true));
+        return future;
+    }
+
+    /**
+     * Gets a connection for read-only work. It comes from the read-only
+     * endpoint when one is configured, unless this application wrote to the
+     * primary within the last db.read.readYourWritesMs, or the endpoint's
+     * circuit breaker is open after a failure; then the primary is used
+     * without waiting for the endpoint's connect timeout. Inside a {@link TransactionScope}
+     * the scope's connection is returned, so reads see the transaction's writes.
+     * @return Connection object; closing it returns it to its pool
+     * @throws SQLException if no connection can be established
+     */
+    public static Connection getReadConnection() throws SQLException {
+        Connection scoped = TransactionScope.currentConnection();
+        if (scoped != null) {
+            return scoped;
+        }
+        ConnectionPool primary = pool();
+        ConnectionPool replica = readPool;
+        if (replica == null || System.currentTimeMillis() - primary.getLastWriteAt() < readYourWritesMs
+                || !READ_BREAKER.allowRequest()) {
+            return getConnection();
+        }
+        try {
+            Connection connection = replica.getConnection();
+            READ_BREAKER.recordSuccess();
+            return connection;
+        } catch (SQLTransientConnectionException e) {
+            if (READ_BREAKER.getState() == CircuitBreaker.State.HALF_OPEN) {
+                READ_BREAKER.recordFailure(); // Inconclusive probe; stay on the primary a while longer
             }
+            LOG.warn("Read-only pool exhausted, using the primary: {}", e.getMessage());
+            return getConnection();
+        } catch (SQLException e) {
+            READ_BREAKER.recordFailure();
+            LOG.warn("Read-only endpoint unavailable, using the primary: {}", e.getMessage());
+            return getConnection();
         }
-        
-        throw new SQLException("Failed to connect after " + MAX_RETRIES + " attempts", lastException);
     }
-    
+
+    private static void attemptAsync(CompletableFuture<Connection> future, int attempt, boolean readOnly) {
+        if (future.isDone()) {
+            return; // Cancelled by the caller
+        }
+
+        try {
+            Connection connection = readOnly ? getReadConnection() : getConnection();
+            if (!future.complete(connection)) {
+                closeConnection(connection);
+            }
+        } catch (SQLException e) {
+            if (BREAKER.getState() == CircuitBreaker.State.OPEN) {
+                future.completeExceptionally(e); // Failing fast, no point in retrying
+                return;
+            }
+            LOG.warn("Connection attempt {}/{} failed: {}", attempt, maxRetries, e.getMessage());
+            if (attempt >= maxRetries || BREAKER.getState() == CircuitBreaker.State.OPEN) {
+                future.completeExceptionally(new SQLException("Failed to connect after " + attempt + " attempts", e));
+                return;
+            }
+            long delay = backoffDelay(attempt);
+            ASYNC_EXECUTOR.schedule(() -> attemptAsync(future, attempt + 1, readOnly), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Exponential backoff with "equal jitter": half of the capped delay is
+     * fixed and the other half random, so clients that failed together do not
+     * retry together.
+     */
+    private static long backoffDelay(int attempt) {
+        long capped = Math.min(retryMaxDelayMs, retryBaseDelayMs << Math.min(attempt - 1, 20));
+        long half = capped / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
     /**
-     * Tests the database connection
+     * Borrows from the pool and reports the outcome to the circuit breaker.
+     * Waiting for a busy pool is not a database failure and is not counted.
+     */
+    private static Connection borrow() throws SQLException {
+        try {
+            Connection connection = pool().getConnection();
+            BREAKER.recordSuccess();
+            return connection;
+        } catch (SQLTransientConnectionException e) {
+            if (BREAKER.getState() == CircuitBreaker.State.HALF_OPEN) {
+                BREAKER.recordFailure(); // Inconclusive probe; reopen so another one is scheduled
+            }
+            throw e;
+        } catch (SQLException e) {
+            BREAKER.recordFailure();
+            throw e;
+        }
+    }
+
+    private static SQLException unavailable() {
+        return new SQLTransientConnectionException("Database unavailable, retrying in "
+            + Math.max(1, BREAKER.getRemainingOpenMs() / 1000) + "s");
+    }
+
+    /**
+     * Schedules the half-open probe that closes the circuit once the database answers again
+     */
+    private static void scheduleProbe() {
+        ASYNC_EXECUTOR.schedule(() -> {
+            if (BREAKER.getState() != CircuitBreaker.State.OPEN || !BREAKER.allowRequest()) {
+                return;
+            }
+            try (Connection connection = borrow()) {
+                // recordSuccess() in borrow() closes the circuit and notifies listeners
+            } catch (SQLException e) {
+                // recordFailure() reopened the circuit, which schedules the next probe
+            }
+        }, BREAKER.getRemainingOpenMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Tests the database connection by validating a pooled connection now,
+     * independently of the readiness published by the heartbeat
      * @return true if connection is successful, false otherwise
      */
     public static boolean testConnection() {
         try (Connection connection = getConnection()) {
-            System.out.println("✅ Database connection test successful!");
-            return true;
+            int timeoutSeconds = Math.max(1, getConfig().getInt("db.heartbeat.timeoutSeconds", 2));
+            if (connection.isValid(timeoutSeconds)) {
+                LOG.info("Database connection test successful");
+                return true;
+            }
+            LOG.error("Database connection test failed: no answer within {}s", timeoutSeconds);
         } catch (SQLException e) {
-            System.err.println("❌ Database connection test failed: " + e.getMessage());
-            return false;
+            LOG.error("Database connection test failed: {}", e.getMessage());
         }
+        return false;
     }
-    
+
     /**
-     * Closes a connection safely
+     * Returns a connection to the pool safely
      * @param connection the connection to close
      */
     public static void closeConnection(Connection connection) {
         if (connection != null) {
             try {
                 connection.close();
-                System.out.println("✅ Database connection closed successfully");
             } catch (SQLException e) {
-                System.err.println("❌ Error closing database connection: " + e.getMessage());
+                LOG.warn("Error closing database connection: {}", e.getMessage());
             }
         }
     }
+
+    /**
+     * Gets the circuit breaker guarding connection attempts. Register a
+     * listener to be told when the database becomes unavailable or recovers.
+     * @return the circuit breaker
+     */
+    public static CircuitBreaker getCircuitBreaker() {
+        return BREAKER;
+    }
+
+    /**
+     * Gets the executor used for asynchronous database work. Use it with
+     * the *Async methods of CompletableFuture to keep queries off the EDT.
+     * @return the executor
+     */
+    public static ScheduledExecutorService getAsyncExecutor() {
+        return ASYNC_EXECUTOR;
+    }
+
+    /**
+     * Gets the shared connection pool, creating it on first use
+     * @return the connection pool
+     * @throws SQLException if the configuration cannot be loaded
+     */
+    public static ConnectionPool getPool() throws SQLException {
+        return pool();
+    }
+
+    /**
+     * Gets the pool of the read-only endpoint
+     * @return the read pool, or null when no read-only endpoint is configured
+     * @throws SQLException if the configuration cannot be loaded
+     */
+    public static ConnectionPool getReadPool() throws SQLException {
+        pool();
+        return readPool;
+    }
+
+    /**
+     * Prepares a query whose rows are read incrementally: forward-only,
+     * read-only, and fetched {@code db.stream.fetchSize} rows at a time
+     * (a server cursor on SQL Server), so a large table never has to fit
+     * in memory
+     * @param connection The connection to use
+     * @param sql The SQL text
+     * @return the prepared statement
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public static PreparedStatement prepareStreaming(Connection connection, String sql) throws SQLException {
+        PreparedStatement stmt = connection.prepareStatement(sql, getDialect().streamingResultSetType(), ResultSet.CONCUR_READ_ONLY);
+        try {
+            stmt.setFetchSize(Math.max(1, getConfig().getInt("db.stream.fetchSize", 500)));
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+        return stmt;
+    }
+
+    /**
+     * Gets the number of rows sent per executeBatch() by bulk inserts
+     * @return {@code db.batch.size}, 500 by default
+     * @throws SQLException if the configuration cannot be loaded
+     */
+    public static int getBatchSize() throws SQLException {
+        return Math.max(1, getConfig().getInt("db.batch.size", 500));
+    }
+
+    /**
+     * Gets the configuration the current pool was built from. Components
+     * outside this package read their own {@code db.*} settings from it.
+     * @return the configuration
+     * @throws SQLException if the configuration cannot be loaded
+     */
+    public static DatabaseConfig getConfig() throws SQLException {
+        pool();
+        return config;
+    }
+
+    /**
+     * Gets the SQL dialect of the configured database
+     * @return the dialect; SQL Server when the configuration cannot be loaded yet
+     */
+    public static Dialect getDialect() {
+        try {
+            pool();
+        } catch (SQLException e) {
+            return SqlServerDialect.INSTANCE;
+        }
+        return dialect;
+    }
+
+    /**
+     * Gets the prepared statement cache counters of the shared pool
+     * @return the statement cache metrics
+     * @throws SQLException if the configuration cannot be loaded
+     */
+    public static StatementCacheMetrics getStatementCacheMetrics() throws SQLException {
+        return pool().getStatementCacheMetrics();
+    }
     
     /**
      * Gets the database URL for debugging purposes
      * @return the database URL
      */
     public static String getDatabaseURL() {
-        return URL;
+        DatabaseConfig current = config;
+        return current == null ? null : current.getUrl();
     }
-    
+
     /**
      * Gets the database user for debugging purposes
      * @return the database user
      */
     public static String getDatabaseUser() {
-        return USER;
+        DatabaseConfig current = config;
+        return current == null ? null : current.getUser();
     }
 }
\ No newline at end of file
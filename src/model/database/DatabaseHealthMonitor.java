@@ -0,0 +1,249 @@
+package model.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import util.Logger;
+
+/**
+ * Background heartbeat for the database.
+ * Every {@code db.heartbeat.intervalMs} a pooled connection is borrowed and
+ * validated; the round trip goes into a {@link LatencyHistogram} and the
+ * outcome into a readiness state that views can observe, so a screen can
+ * fall back to the data it already shows instead of blocking on a query
+ * that is going to time out:
+ * <ul>
+ *   <li>UP: the last ping succeeded within {@code db.heartbeat.degradedMs}</li>
+ *   <li>DEGRADED: the last ping was slow, the pool had no free connection,
+ *       or a ping failed but not yet {@code db.heartbeat.failuresForDown}
+ *       times in a row</li>
+ *   <li>DOWN: consecutive pings failed or the circuit breaker is open</li>
+ * </ul>
+ * The breaker opening switches to DOWN at once; the breaker closing
+ * triggers an immediate ping.
+ */
+public final class DatabaseHealthMonitor {
+    private static final Logger LOG = Logger.getLogger(DatabaseHealthMonitor.class);
+
+    /**
+     * Readiness of the database as seen by the heartbeat
+     */
+    public enum Readiness {
+        UP,
+        DEGRADED,
+        DOWN
+    }
+
+    /**
+     * Receives readiness changes. Called on the heartbeat thread; Swing
+     * listeners must hand off to the EDT.
+     */
+    public interface Listener {
+        void readinessChanged(Readiness previous, Readiness current);
+    }
+
+    private static final LatencyHistogram HISTOGRAM = new LatencyHistogram();
+    private static final CopyOnWriteArrayList<Listener> LISTENERS = new CopyOnWriteArrayList<>();
+    private static final Object LOCK = new Object();
+    private static final CircuitBreaker.Listener BREAKER_LISTENER = (previous, current) -> {
+        if (current == CircuitBreaker.State.OPEN) {
+            update(Readiness.DOWN, "circuit breaker open");
+        } else if (current == CircuitBreaker.State.CLOSED) {
+            checkSoon();
+        }
+    };
+
+    private static volatile Readiness readiness = Readiness.UP;
+    private static volatile long lastLatencyMicros = -1;
+    private static volatile long lastCheckAt;
+    private static int consecutiveFailures; // Guarded by the class monitor (checkNow)
+    private static ScheduledExecutorService scheduler; // Guarded by LOCK
+
+    private DatabaseHealthMonitor() {
+    }
+
+    /**
+     * Starts the heartbeat; calling it again has no effect
+     */
+    public static void start() {
+        synchronized (LOCK) {
+            if (scheduler != null) {
+                return;
+            }
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "db-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        DatabaseConnection.getCircuitBreaker().addListener(BREAKER_LISTENER);
+        scheduleNext(0);
+    }
+
+    /**
+     * Stops the heartbeat
+     */
+    public static void stop() {
+        synchronized (LOCK) {
+            if (scheduler == null) {
+                return;
+            }
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        DatabaseConnection.getCircuitBreaker().removeListener(BREAKER_LISTENER);
+    }
+
+    /**
+     * @return The readiness published by the last heartbeat
+     */
+    public static Readiness getReadiness() {
+        return readiness;
+    }
+
+    /**
+     * @return true unless the database is known to be down
+     */
+    public static boolean isAvailable() {
+        return readiness != Readiness.DOWN;
+    }
+
+    /**
+     * @return Round-trip latencies of every successful ping
+     */
+    public static LatencyHistogram getLatencyHistogram() {
+        return HISTOGRAM;
+    }
+
+    /**
+     * @return Latency of the last successful ping in microseconds, -1 before the first one
+     */
+    public static long getLastLatencyMicros() {
+        return lastLatencyMicros;
+    }
+
+    /**
+     * @return When the last ping finished, 0 before the first one
+     */
+    public static long getLastCheckAt() {
+        return lastCheckAt;
+    }
+
+    public static void addListener(Listener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Pings the database on the calling thread and updates the readiness
+     * @return The readiness after the ping
+     */
+    public static synchronized Readiness checkNow() {
+        if (DatabaseConnection.getCircuitBreaker().getState() == CircuitBreaker.State.OPEN) {
+            consecutiveFailures++;
+            update(Readiness.DOWN, "circuit breaker open");
+            return readiness;
+        }
+
+        int timeoutSeconds = 2;
+        long degradedMs = 1000;
+        int failuresForDown = 2;
+        long start = System.nanoTime();
+        try {
+            DatabaseConfig config = DatabaseConnection.getConfig();
+            timeoutSeconds = Math.max(1, config.getInt("db.heartbeat.timeoutSeconds", 2));
+            degradedMs = config.getInt("db.heartbeat.degradedMs", 1000);
+            failuresForDown = Math.max(1, config.getInt("db.heartbeat.failuresForDown", 2));
+
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                if (!connection.isValid(timeoutSeconds)) {
+                    throw new SQLException("Connection did not validate within " + timeoutSeconds + "s");
+                }
+            }
+            long micros = (System.nanoTime() - start) / 1000;
+            HISTOGRAM.record(micros);
+            lastLatencyMicros = micros;
+            consecutiveFailures = 0;
+            if (micros / 1000 > degradedMs) {
+                update(Readiness.DEGRADED, "slow ping: " + micros / 1000 + "ms");
+            } else {
+                update(Readiness.UP, null);
+            }
+        } catch (SQLTransientConnectionException e) {
+            // Pool exhausted or breaker tripped while waiting: the server may be fine but we cannot reach it in time
+            consecutiveFailures++;
+            Readiness next = DatabaseConnection.getCircuitBreaker().getState() == CircuitBreaker.State.OPEN
+                ? Readiness.DOWN : Readiness.DEGRADED;
+            update(next, e.getMessage());
+        } catch (SQLException | RuntimeException e) {
+            consecutiveFailures++;
+            update(consecutiveFailures >= failuresForDown ? Readiness.DOWN : Readiness.DEGRADED, e.getMessage());
+        } finally {
+            lastCheckAt = System.currentTimeMillis();
+        }
+        return readiness;
+    }
+
+    private static void tick() {
+        checkNow();
+        long intervalMs = 5000;
+        try {
+            intervalMs = Math.max(100, DatabaseConnection.getConfig().getInt("db.heartbeat.intervalMs", 5000));
+        } catch (SQLException | RuntimeException e) {
+            // Keep the default until a configuration can be loaded
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Database heartbeat: {} ({})", readiness, HISTOGRAM);
+        }
+        scheduleNext(intervalMs);
+    }
+
+    /**
+     * Runs one extra ping on the heartbeat thread without disturbing the schedule
+     */
+    private static void checkSoon() {
+        synchronized (LOCK) {
+            if (scheduler != null && !scheduler.isShutdown()) {
+                scheduler.execute(DatabaseHealthMonitor::checkNow);
+            }
+        }
+    }
+
+    private static void scheduleNext(long delayMs) {
+        synchronized (LOCK) {
+            if (scheduler != null && !scheduler.isShutdown()) {
+                scheduler.schedule(DatabaseHealthMonitor::tick, delayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private static void update(Readiness next, String reason) {
+        Readiness previous;
+        synchronized (LOCK) {
+            previous = readiness;
+            if (previous == next) {
+                return;
+            }
+            readiness = next;
+        }
+        if (next == Readiness.UP) {
+            LOG.info("Database readiness {} -> UP", previous);
+        } else {
+            LOG.warn("Database readiness {} -> {}: {}", previous, next, reason);
+        }
+        for (Listener listener : LISTENERS) {
+            try {
+                listener.readinessChanged(previous, next);
+            } catch (RuntimeException e) {
+                LOG.warn("Health listener failed", e);
+            }
+        }
+    }
+}
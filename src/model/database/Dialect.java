@@ -0,0 +1,115 @@
+package model.database;
+
+import java.sql.SQLException;
+
+/**
+ * SQL fragments that differ between the databases the application can run on.
+ * DAOs and reports build vendor-specific parts of their queries through the
+ * dialect returned by {@link DatabaseConnection#getDialect()} instead of
+ * hard-coding T-SQL.
+ */
+public interface Dialect {
+
+    /**
+     * @return A short name for logs, e.g. "SQL Server"
+     */
+    String getName();
+
+    /**
+     * @return true for the in-process database started by the application itself
+     */
+    boolean isEmbedded();
+
+    /**
+     * @return Expression for the current date and time
+     */
+    String currentTimestamp();
+
+    /**
+     * @param dateExpression A date expression
+     * @param months Months to add; negative to go back
+     * @return Expression for the shifted date
+     */
+    String addMonths(String dateExpression, int months);
+
+    /**
+     * @param dateExpression A date expression
+     * @return Expression for the date as a 'yyyy-MM' string
+     */
+    String yearMonthLabel(String dateExpression);
+
+    /**
+     * @param expressions String expressions
+     * @return Expression concatenating them
+     */
+    String concat(String... expressions);
+
+    /**
+     * Table reference for a read that must keep the rows it looks at locked
+     * until the transaction ends, so a following insert cannot race
+     * @param table The table name, optionally followed by an alias
+     * @return The table reference with any locking hint
+     */
+    String lockedTable(String table);
+
+    /**
+     * @return Clause appended to a locking SELECT, or an empty string
+     */
+    String forUpdateClause();
+
+    /**
+     * Result set type for queries read incrementally in forward order,
+     * passed to {@code prepareStatement(sql, type, CONCUR_READ_ONLY)}
+     * @return A {@link java.sql.ResultSet} type, or a driver-specific one
+     */
+    int streamingResultSetType();
+
+    /**
+     * Insert statement, run with executeQuery(), whose result set holds
+     * columns of the inserted row such as its identity and the values the
+     * column defaults gave it
+     * @param table The table name
+     * @param columns The inserted columns, comma-separated
+     * @param values The value list, usually parameter markers
+     * @param returning The columns to return, in result set order
+     * @return The statement text
+     */
+    String insertReturning(String table, String columns, String values, String... returning);
+
+    /**
+     * Insert-or-update statement, run with executeQuery(), that is atomic
+     * against concurrent upserts of the same key and whose result set holds
+     * columns of the row as written
+     * @param table The table name
+     * @param keyColumn The column that identifies an existing row; must have a unique constraint
+     * @param columns The written columns, comma-separated, including the key;
+     *        each is bound to one parameter, in this order
+     * @param returning The columns to return, in result set order
+     * @return The statement text
+     */
+    String upsertReturning(String table, String keyColumn, String columns, String... returning);
+
+    /**
+     * @param e An error raised by a statement
+     * @return true if it rejected a row that violates a primary key or unique constraint
+     */
+    boolean isDuplicateKey(SQLException e);
+
+    /**
+     * @param e An error raised by a statement
+     * @return true if it rejected a row that references a missing parent row
+     */
+    boolean isForeignKeyViolation(SQLException e);
+
+    /**
+     * Picks the dialect for a JDBC URL
+     * @param url The JDBC URL
+     * @return the matching dialect; SQL Server when the URL is not recognised
+     */
+    static Dialect forUrl(String url) {
+        if (url != null && url.startsWith("jdbc:h2:")) {
+            return H2Dialect.INSTANCE;
+        }
+        return SqlServerDialect.INSTANCE;
+    }
+}
@@ -0,0 +1,210 @@
+package model.database;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import util.Logger;
+
+/**
+ * In-process H2 database standing in for SQL Server, for offline single-desk
+ * use and for benchmarks that must not depend on a server.
+ * On first use the schema and seed data are loaded from the same scripts
+ * used for SQL Server ("database/Create Database.sql" and
+ * "database/Insert Data.sql"), translated from T-SQL on the fly. Database
+ * creation and stored procedures have no H2 equivalent and are skipped.
+ * <p>
+ * Enabled with {@code db.embedded=true}, or by pointing {@code db.url} at a
+ * {@code jdbc:h2:} URL. Requires the H2 jar (2.x) on the classpath.
+ */
+final class EmbeddedDatabase {
+    private static final Logger LOG = Logger.getLogger(EmbeddedDatabase.class);
+
+    static final String DRIVER = "org.h2.Driver";
+    static final String DEFAULT_URL = "jdbc:h2:mem:CampanaSalud;MODE=MSSQLServer;DATABASE_TO_UPPER=FALSE;DB_CLOSE_DELAY=-1";
+    static final String DEFAULT_SCHEMA_SCRIPT = "database/Create Database.sql";
+    static final String DEFAULT_DATA_SCRIPT = "database/Insert Data.sql";
+
+    private static final Pattern GO = Pattern.compile("(?im)^\\s*GO\\s*$");
+    private static final Pattern BRACKETED = Pattern.compile("\\[(\\w+)\\]");
+    private static final Pattern STRING_CONCAT = Pattern.compile(
+        "(?:\\w+\\.\\w+|'[^']*')(?:\\s*\\+\\s*(?:\\w+\\.\\w+|'[^']*'))+");
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * Creates the schema and loads the seed data unless the database already has them
+     * @param config The configuration, used for the URL, credentials and script locations
+     * @throws SQLException if the schema cannot be created
+     */
+    static void initialize(DatabaseConfig config) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword())) {
+            if (hasTable(connection, "Usuario")) {
+                LOG.info("Embedded database already initialized");
+                return;
+            }
+            long start = System.currentTimeMillis();
+            runScript(connection, script(config, "db.embedded.schema", DEFAULT_SCHEMA_SCRIPT));
+            runScript(connection, script(config, "db.embedded.data", DEFAULT_DATA_SCRIPT));
+            LOG.info("Embedded database initialized in {}ms", System.currentTimeMillis() - start);
+        }
+    }
+
+    private static boolean hasTable(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : new String[] { table, table.toUpperCase() }) {
+            try (ResultSet rs = metaData.getTables(null, null, name, new String[] { "TABLE" })) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String script(DatabaseConfig config, String key, String defaultPath) throws SQLException {
+        Path path = Paths.get(config.get(key) != null ? config.get(key) : defaultPath);
+        try {
+            return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Cannot read database script " + path.toAbsolutePath(), e);
+        }
+    }
+
+    private static void runScript(Connection connection, String script) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            for (String batch : GO.split(script)) {
+                for (String sql : statements(batch)) {
+                    String translated = translate(sql);
+                    if (translated == null) {
+                        continue;
+                    }
+                    try {
+                        stmt.execute(translated);
+                    } catch (SQLException e) {
+                        if (!isOptional(translated)) {
+                            throw new SQLException("Error running embedded schema statement: " + firstLine(translated), e);
+                        }
+                        LOG.warn("Skipping statement not supported by the embedded database: {} ({})",
+                            firstLine(translated), e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits a batch into statements at semicolons outside string literals.
+     * Batches with no H2 equivalent (procedures, IF blocks, database
+     * creation) are kept whole so that they are skipped as a unit.
+     */
+    private static List<String> statements(String batch) {
+        List<String> result = new ArrayList<>();
+        String body = stripComments(batch).trim();
+        if (body.isEmpty()) {
+            return result;
+        }
+        if (translate(body) == null) {
+            result.add(body);
+            return result;
+        }
+        StringBuilder current = new StringBuilder();
+        boolean inString = false;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '\'') {
+                inString = !inString;
+            }
+            if (c == ';' && !inString) {
+                addStatement(result, current);
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        addStatement(result, current);
+        return result;
+    }
+
+    private static void addStatement(List<String> result, StringBuilder statement) {
+        String sql = statement.toString().trim();
+        if (!sql.isEmpty()) {
+            result.add(sql);
+        }
+    }
+
+    private static String stripComments(String batch) {
+        StringBuilder sb = new StringBuilder(batch.length());
+        for (String line : batch.split("\\R")) {
+            if (!line.trim().startsWith("--")) {
+                sb.append(line).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Rewrites a T-SQL statement for H2
+     * @return the statement, or null if it has no H2 equivalent
+     */
+    static String translate(String sql) {
+        if (startsWithWord(sql, "IF EXISTS") || startsWithWord(sql, "CREATE DATABASE")
+                || startsWithWord(sql, "ALTER DATABASE") || startsWithWord(sql, "DROP DATABASE")
+                || startsWithWord(sql, "USE") || startsWithWord(sql, "CREATE PROCEDURE")
+                || startsWithWord(sql, "CREATE PROC") || sql.toUpperCase().contains("CHANGE_TRACKING")) {
+            return null;
+        }
+        String result = sql.replace("[dbo].", "");
+        result = BRACKETED.matcher(result).replaceAll("$1");
+        result = result.replaceAll("(?i)PRIMARY KEY\\s+IDENTITY\\s*\\(\\s*1\\s*,\\s*1\\s*\\)", "GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY");
+        result = result.replaceAll("(?i)IDENTITY\\s*\\(\\s*1\\s*,\\s*1\\s*\\)", "GENERATED BY DEFAULT AS IDENTITY");
+        result = result.replaceAll("(?i)\\b(NON)?CLUSTERED\\b", "");
+        result = result.replaceAll("(?i)\\s+ASC\\b", "");
+        result = result.replaceAll("(?i)\\s+INCLUDE\\s*\\([^)]*\\)", ""); // H2 has no covering columns
+        result = result.replaceAll("(?i)GETDATE\\(\\)", "CURRENT_TIMESTAMP");
+        return concatStrings(result);
+    }
+
+    /**
+     * Replaces + with || in concatenations that involve a string literal
+     */
+    private static String concatStrings(String sql) {
+        Matcher matcher = STRING_CONCAT.matcher(sql);
+        StringBuilder sb = new StringBuilder();
+        while (matcher.find()) {
+            String match = matcher.group();
+            String replacement = match.contains("'") ? match.replaceAll("\\s*\\+\\s*(?=(?:[^']*'[^']*')*[^']*$)", " || ") : match;
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static boolean isOptional(String sql) {
+        return startsWithWord(sql, "CREATE VIEW") || startsWithWord(sql, "CREATE INDEX")
+            || startsWithWord(sql, "CREATE UNIQUE INDEX");
+    }
+
+    private static boolean startsWithWord(String sql, String prefix) {
+        String normalized = sql.trim().replaceAll("\\s+", " ");
+        return normalized.regionMatches(true, 0, prefix, 0, prefix.length())
+            && (normalized.length() == prefix.length() || !Character.isLetterOrDigit(normalized.charAt(prefix.length())));
+    }
+
+    private static String firstLine(String sql) {
+        int newline = sql.indexOf('\n');
+        return newline < 0 ? sql : sql.substring(0, newline).trim() + " ...";
+    }
+}
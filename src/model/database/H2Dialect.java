@@ -0,0 +1,80 @@
+package model.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+
+/**
+ * H2, used as the embedded in-process database
+ */
+public class H2Dialect implements Dialect {
+    static final H2Dialect INSTANCE = new H2Dialect();
+
+    @Override
+    public String getName() {
+        return "H2";
+    }
+
+    @Override
+    public boolean isEmbedded() {
+        return true;
+    }
+
+    @Override
+    public String currentTimestamp() {
+        return "CURRENT_TIMESTAMP";
+    }
+
+    @Override
+    public String addMonths(String dateExpression, int months) {
+        return "DATEADD('MONTH', " + months + ", " + dateExpression + ")";
+    }
+
+    @Override
+    public String yearMonthLabel(String dateExpression) {
+        return "FORMATDATETIME(" + dateExpression + ", 'yyyy-MM')";
+    }
+
+    @Override
+    public String concat(String... expressions) {
+        return "(" + String.join(" || ", expressions) + ")";
+    }
+
+    @Override
+    public String lockedTable(String table) {
+        return table;
+    }
+
+    @Override
+    public String forUpdateClause() {
+        return " FOR UPDATE";
+    }
+
+    @Override
+    public int streamingResultSetType() {
+        return ResultSet.TYPE_FORWARD_ONLY; // H2 pages large results by itself
+    }
+
+    @Override
+    public String insertReturning(String table, String columns, String values, String... returning) {
+        return "SELECT " + String.join(", ", returning) + " FROM FINAL TABLE (INSERT INTO " + table
+            + " (" + columns + ") VALUES (" + values + "))";
+    }
+
+    @Override
+    public String upsertReturning(String table, String keyColumn, String columns, String... returning) {
+        String parameters = String.join(", ", Collections.nCopies(columns.split(",").length, "?"));
+        return "SELECT " + String.join(", ", returning) + " FROM FINAL TABLE (MERGE INTO " + table
+            + " (" + columns + ") KEY (" + keyColumn + ") VALUES (" + parameters + "))";
+    }
+
+    @Override
+    public boolean isDuplicateKey(SQLException e) {
+        return e.getErrorCode() == 23505; // DUPLICATE_KEY_1
+    }
+
+    @Override
+    public boolean isForeignKeyViolation(SQLException e) {
+        return e.getErrorCode() == 23506; // REFERENTIAL_INTEGRITY_VIOLATED_PARENT_MISSING_1
+    }
+}
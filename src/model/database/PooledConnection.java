@@ -0,0 +1,181 @@
+package model.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import util.Logger;
+
+/**
+ * A physical connection owned by a {@link ConnectionPool}.
+ * Callers never see this object directly: every checkout hands out a fresh
+ * logical {@link Connection} proxy whose close() returns the physical
+ * connection to the pool instead of closing it.
+ */
+class PooledConnection {
+    private static final Logger LOG = Logger.getLogger(PooledConnection.class);
+
+    private final ConnectionPool pool;
+    private final Connection physical;
+    private final StatementCache statementCache;
+    private final long createdAt;
+    private volatile long lastUsedAt;
+    private volatile long borrowedAt;
+    private volatile Throwable borrowSite;
+    private volatile boolean leakReported;
+
+    /**
+     * @param pool The owning pool
+     * @param physical The physical connection
+     * @param statementCacheSize Prepared statements cached per connection (0 disables the cache)
+     * @param metrics Counters shared by all statement caches of the pool
+     */
+    PooledConnection(ConnectionPool pool, Connection physical, int statementCacheSize, StatementCacheMetrics metrics) {
+        this.pool = pool;
+        this.physical = physical;
+        this.statementCache = statementCacheSize > 0 ? new StatementCache(physical, statementCacheSize, metrics) : null;
+        this.createdAt = System.currentTimeMillis();
+        this.lastUsedAt = createdAt;
+    }
+
+    Connection getPhysical() {
+        return physical;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    long getBorrowedAt() {
+        return borrowedAt;
+    }
+
+    Throwable getBorrowSite() {
+        return borrowSite;
+    }
+
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    void setLeakReported(boolean leakReported) {
+        this.leakReported = leakReported;
+    }
+
+    /**
+     * Marks the connection as checked out
+     * @param borrowSite Stack trace of the caller, or null when leak detection is disabled
+     */
+    void markBorrowed(Throwable borrowSite) {
+        this.borrowedAt = System.currentTimeMillis();
+        this.borrowSite = borrowSite;
+        this.leakReported = false;
+    }
+
+    /**
+     * Marks the connection as idle again
+     */
+    void markReturned() {
+        this.lastUsedAt = System.currentTimeMillis();
+        this.borrowSite = null;
+    }
+
+    /**
+     * Creates the logical connection handed out for a single checkout
+     * @return A proxy that delegates to the physical connection
+     */
+    Connection newLogicalConnection() {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new LogicalConnectionHandler());
+    }
+
+    /**
+     * Closes the physical connection, ignoring errors
+     */
+    void closePhysical() {
+        if (statementCache != null) {
+            statementCache.clear();
+        }
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            LOG.warn("Error closing pooled connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Checks whether a statement modifies data, for read-your-writes routing
+     * @param sql The SQL text
+     * @return true for INSERT, UPDATE, DELETE and MERGE statements
+     */
+    static boolean isWrite(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        String head = sql.stripLeading();
+        return head.regionMatches(true, 0, "INSERT", 0, 6)
+            || head.regionMatches(true, 0, "UPDATE", 0, 6)
+            || head.regionMatches(true, 0, "DELETE", 0, 6)
+            || head.regionMatches(true, 0, "MERGE", 0, 5);
+    }
+
+    /**
+     * Routes calls on the logical connection to the physical one until the
+     * caller closes it; after that the handle is dead even though the
+     * physical connection lives on in the pool. prepareStatement(String)
+     * is served from the connection's statement cache, and preparing a
+     * data-modifying statement is reported to the pool.
+     */
+    private class LogicalConnectionHandler implements InvocationHandler {
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + (closed ? ", closed" : "") + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+
+            if (("prepareStatement".equals(name) || "prepareCall".equals(name)) && isWrite((String) args[0])) {
+                pool.recordWrite();
+            }
+
+            if (statementCache != null && "prepareStatement".equals(name) && args.length == 1) {
+                return statementCache.prepare((String) args[0], (Connection) proxy);
+            }
+
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package model.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import util.Logger;
+
+/**
+ * Runs the queries of one screen with per-class timeouts and cancellation.
+ * Each refresh of the screen starts a new {@link Request}; starting it
+ * cancels the statements of the previous request that are still running,
+ * so changing a filter twice in a row never leaves the first query
+ * working on the server:
+ * <pre>
+ *     QueryExecutor.Request request = queries.newRequest();
+ *     try (request;
+ *          Statement stmt = request.createStatement(conn, QueryClass.REPORT);
+ *          ResultSet rs = stmt.executeQuery(sql)) {
+ *         ...
+ *     } catch (SQLException e) {
+ *         if (request.isCancelled()) ... // replaced by a newer request, not an error
+ *     }
+ * </pre>
+ * Timeouts are read from {@code db.timeout.<class>Seconds}, e.g.
+ * {@code db.timeout.reportSeconds}; 0 means no timeout.
+ */
+public final class QueryExecutor {
+    private static final Logger LOG = Logger.getLogger(QueryExecutor.class);
+    private static final QueryMetrics METRICS = new QueryMetrics();
+
+    /**
+     * Kinds of query, each with its own timeout
+     */
+    public enum QueryClass {
+        /** Lookups behind a form or a list; the user is waiting */
+        INTERACTIVE("interactive", 5),
+        /** Aggregations for the dashboard and reports */
+        REPORT("report", 30),
+        /** Imports and maintenance; no timeout by default */
+        BATCH("batch", 0);
+
+        private final String key;
+        private final int defaultSeconds;
+
+        QueryClass(String key, int defaultSeconds) {
+            this.key = key;
+            this.defaultSeconds = defaultSeconds;
+        }
+
+        /**
+         * @return The configured timeout in seconds, 0 for none
+         */
+        public int getTimeoutSeconds() {
+            try {
+                return Math.max(0, DatabaseConnection.getConfig().getInt("db.timeout." + key + "Seconds", defaultSeconds));
+            } catch (SQLException e) {
+                return defaultSeconds;
+            }
+        }
+    }
+
+    private final String name;
+    private Request current; // Guarded by this
+
+    /**
+     * @param name Name of the screen, for logging
+     */
+    public QueryExecutor(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return Counters shared by every executor
+     */
+    public static QueryMetrics getMetrics() {
+        return METRICS;
+    }
+
+    /**
+     * Starts a request and cancels the one it replaces
+     * @return The new request; close it once its statements are done
+     */
+    public Request newRequest() {
+        Request previous;
+        Request request = new Request();
+        synchronized (this) {
+            previous = current;
+            current = request;
+        }
+        if (previous != null) {
+            previous.cancelInBackground();
+        }
+        return request;
+    }
+
+    /**
+     * Cancels the running request, e.g. when the screen is closed
+     */
+    public void cancelAll() {
+        Request previous;
+        synchronized (this) {
+            previous = current;
+            current = null;
+        }
+        if (previous != null) {
+            previous.cancelInBackground();
+        }
+    }
+
+    private synchronized void finished(Request request) {
+        if (current == request) {
+            current = null;
+        }
+    }
+
+    /**
+     * The statements issued for one refresh of a screen
+     */
+    public final class Request implements AutoCloseable {
+        private final List<Statement> inFlight = new ArrayList<>();
+        private boolean cancelled;
+
+        private Request() {
+        }
+
+        /**
+         * Creates a statement with the timeout of its query class
+         * @param connection The connection to use
+         * @param queryClass The kind of query
+         * @return A statement that is cancelled if this request is replaced
+         * @throws SQLException if the request was already replaced, or the statement cannot be created
+         */
+        public Statement createStatement(Connection connection, QueryClass queryClass) throws SQLException {
+            checkNotCancelled();
+            return track(connection.createStatement(), Statement.class, queryClass);
+        }
+
+        /**
+         * Prepares a statement with the timeout of its query class
+         * @param connection The connection to use
+         * @param sql The SQL text
+         * @param queryClass The kind of query
+         * @return A statement that is cancelled if this request is replaced
+         * @throws SQLException if the request was already replaced, or the statement cannot be prepared
+         */
+        public PreparedStatement prepareStatement(Connection connection, String sql, QueryClass queryClass) throws SQLException {
+            checkNotCancelled();
+            return track(connection.prepareStatement(sql), PreparedStatement.class, queryClass);
+        }
+
+        /**
+         * @return true if a newer request replaced this one
+         */
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                inFlight.clear();
+            }
+            finished(this);
+        }
+
+        private void checkNotCancelled() throws SQLException {
+            if (isCancelled()) {
+                METRICS.recordSuperseded();
+                throw new SQLException("Query request of " + name + " was replaced by a newer one", "HY008");
+            }
+        }
+
+        private <T extends Statement> T track(T statement, Class<T> type, QueryClass queryClass) throws SQLException {
+            try {
+                statement.setQueryTimeout(queryClass.getTimeoutSeconds());
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+            synchronized (this) {
+                if (cancelled) {
+                    statement.close();
+                    METRICS.recordSuperseded();
+                    throw new SQLException("Query request of " + name + " was replaced by a newer one", "HY008");
+                }
+                inFlight.add(statement);
+            }
+            return type.cast(Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[] { type },
+                new TrackedStatementHandler(statement)));
+        }
+
+        /**
+         * Marks the request as replaced at once and cancels its statements
+         * off the calling thread, which is usually the EDT: cancel() sends
+         * a message to the server and may block.
+         */
+        private void cancelInBackground() {
+            synchronized (this) {
+                cancelled = true;
+                if (inFlight.isEmpty()) {
+                    return;
+                }
+            }
+            DatabaseConnection.getAsyncExecutor().execute(this::cancel);
+        }
+
+        /**
+         * Cancels every statement still running. Runs under the request's
+         * lock so that a statement is never cancelled after it was closed
+         * and handed to another caller by the statement cache.
+         */
+        private synchronized void cancel() {
+            cancelled = true;
+            for (Statement statement : inFlight) {
+                try {
+                    statement.cancel();
+                    METRICS.recordCancellation();
+                } catch (SQLException e) {
+                    LOG.debug("Error cancelling statement of {}: {}", name, e.getMessage());
+                }
+            }
+            if (!inFlight.isEmpty()) {
+                LOG.debug("Cancelled {} running statement(s) of {}", inFlight.size(), name);
+            }
+            inFlight.clear();
+        }
+
+        private synchronized void untrack(Statement statement) {
+            inFlight.remove(statement);
+        }
+
+        /**
+         * Counts executions and timeouts, and stops tracking the statement when it is closed
+         */
+        private class TrackedStatementHandler implements InvocationHandler {
+            private final Statement target;
+
+            TrackedStatementHandler(Statement target) {
+                this.target = target;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String methodName = method.getName();
+                switch (methodName) {
+                    case "close":
+                        untrack(target);
+                        break;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        break;
+                }
+                if (methodName.startsWith("execute")) {
+                    METRICS.recordExecution();
+                }
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof SQLTimeoutException && !isCancelled()) {
+                        METRICS.recordTimeout();
+                        LOG.warn("Query of {} timed out: {}", name, e.getCause().getMessage());
+                    }
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package model.database;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for statements run through a {@link QueryExecutor}.
+ * A filter that is changed faster than its queries complete shows up as
+ * cancellations rather than as a growing backlog of executions.
+ */
+public class QueryMetrics {
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder cancellations = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+
+    void recordExecution() {
+        executions.increment();
+    }
+
+    void recordCancellation() {
+        cancellations.increment();
+    }
+
+    void recordTimeout() {
+        timeouts.increment();
+    }
+
+    void recordSuperseded() {
+        superseded.increment();
+    }
+
+    /**
+     * @return Number of statements sent to the database
+     */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /**
+     * @return Number of in-flight statements cancelled because a newer request replaced them
+     */
+    public long getCancellations() {
+        return cancellations.sum();
+    }
+
+    /**
+     * @return Number of statements that hit their query timeout
+     */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * @return Number of statements never sent because their request had already been replaced
+     */
+    public long getSuperseded() {
+        return superseded.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QueryMetrics{executions=%d, cancellations=%d, timeouts=%d, superseded=%d}",
+            getExecutions(), getCancellations(), getTimeouts(), getSuperseded());
+    }
+}
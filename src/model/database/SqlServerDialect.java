@@ -0,0 +1,119 @@
+package model.database;
+
+import java.sql.SQLException;
+
+/**
+ * Microsoft SQL Server (T-SQL)
+ */
+public class SqlServerDialect implements Dialect {
+    static final SqlServerDialect INSTANCE = new SqlServerDialect();
+
+    @Override
+    public String getName() {
+        return "SQL Server";
+    }
+
+    @Override
+    public boolean isEmbedded() {
+        return false;
+    }
+
+    @Override
+    public String currentTimestamp() {
+        return "GETDATE()";
+    }
+
+    @Override
+    public String addMonths(String dateExpression, int months) {
+        return "DATEADD(MONTH, " + months + ", " + dateExpression + ")";
+    }
+
+    @Override
+    public String yearMonthLabel(String dateExpression) {
+        return "CAST(YEAR(" + dateExpression + ") AS VARCHAR) + '-' + "
+            + "RIGHT('0' + CAST(MONTH(" + dateExpression + ") AS VARCHAR), 2)";
+    }
+
+    @Override
+    public String concat(String... expressions) {
+        return "(" + String.join(" + ", expressions) + ")";
+    }
+
+    @Override
+    public String lockedTable(String table) {
+        return table + " WITH (UPDLOCK, HOLDLOCK)";
+    }
+
+    @Override
+    public String forUpdateClause() {
+        return "";
+    }
+
+    @Override
+    public int streamingResultSetType() {
+        // SQLServerResultSet.TYPE_SS_SERVER_CURSOR_FORWARD_ONLY: a fast-forward server
+        // cursor that sends fetchSize rows per round trip instead of the whole result
+        return 2004;
+    }
+
+    @Override
+    public String insertReturning(String table, String columns, String values, String... returning) {
+        // OUTPUT without INTO is rejected on tables with enabled triggers; none of ours has one
+        StringBuilder output = new StringBuilder();
+        for (String column : returning) {
+            if (output.length() > 0) {
+                output.append(", ");
+            }
+            output.append("INSERTED.").append(column);
+        }
+        return "INSERT INTO " + table + " (" + columns + ") OUTPUT " + output + " VALUES (" + values + ")";
+    }
+
+    @Override
+    public String upsertReturning(String table, String keyColumn, String columns, String... returning) {
+        StringBuilder source = new StringBuilder();
+        StringBuilder update = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (String column : columns.split(",")) {
+            column = column.trim();
+            if (values.length() > 0) {
+                source.append(", ");
+                values.append(", ");
+            }
+            source.append("? AS ").append(column);
+            values.append("s.").append(column);
+            if (!column.equals(keyColumn)) {
+                if (update.length() > 0) {
+                    update.append(", ");
+                }
+                update.append(column).append(" = s.").append(column);
+            }
+        }
+        StringBuilder output = new StringBuilder();
+        for (String column : returning) {
+            if (output.length() > 0) {
+                output.append(", ");
+            }
+            output.append("INSERTED.").append(column);
+        }
+        // HOLDLOCK keeps the key range locked from the match to the insert, so two
+        // concurrent upserts of a new key cannot both take the insert branch
+        return "MERGE " + table + " WITH (HOLDLOCK) AS t USING (SELECT " + source + ") AS s"
+            + " ON t." + keyColumn + " = s." + keyColumn
+            + " WHEN MATCHED THEN UPDATE SET " + update
+            + " WHEN NOT MATCHED THEN INSERT (" + columns + ") VALUES (" + values + ")"
+            + " OUTPUT " + output + ";";
+    }
+
+    @Override
+    public boolean isDuplicateKey(SQLException e) {
+        // 2627: unique constraint or primary key; 2601: unique index
+        return e.getErrorCode() == 2627 || e.getErrorCode() == 2601;
+    }
+
+    @Override
+    public boolean isForeignKeyViolation(SQLException e) {
+        // 547 also covers CHECK constraints; their message names the constraint kind
+        return e.getErrorCode() == 547 && String.valueOf(e.getMessage()).contains("FOREIGN KEY");
+    }
+}
@@ -0,0 +1,211 @@
+package model.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL text.
+ * Statements handed out from the cache are wrapped so that close() puts them
+ * back instead of releasing them on the server.
+ */
+class StatementCache {
+    private final Connection physical;
+    private final int maxSize;
+    private final StatementCacheMetrics metrics;
+    private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int maxSize, StatementCacheMetrics metrics) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns a cached statement for the SQL text, preparing it on a miss
+     * @param sql The SQL text
+     * @param owner The logical connection returned by getConnection() on the statement
+     * @return A statement whose close() returns it to this cache
+     * @throws SQLException if the statement cannot be prepared
+     */
+    synchronized PreparedStatement prepare(String sql, Connection owner) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+        if (cached != null && !cached.inUse) {
+            metrics.recordHit();
+            cached.inUse = true;
+            return cached.newHandle(owner);
+        }
+
+        metrics.recordMiss(sql);
+        PreparedStatement statement = physical.prepareStatement(sql);
+        if (cached != null) {
+            // Same SQL already open on this connection (nested use); do not cache the second copy
+            return statement;
+        }
+
+        cached = new CachedStatement(sql, statement);
+        cached.inUse = true;
+        statements.put(sql, cached);
+        evictOverflow();
+        return cached.newHandle(owner);
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, CachedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            CachedStatement eldest = it.next().getValue();
+            it.remove();
+            metrics.recordEviction();
+            eldest.evicted = true;
+            if (!eldest.inUse) {
+                eldest.closeQuietly();
+            }
+        }
+    }
+
+    private synchronized void giveBack(CachedStatement cached) {
+        cached.inUse = false;
+        if (cached.evicted) {
+            statements.remove(cached.sql, cached);
+            cached.closeQuietly();
+        }
+    }
+
+    /**
+     * Closes every cached statement. Called before the physical connection is closed.
+     */
+    synchronized void clear() {
+        for (CachedStatement cached : statements.values()) {
+            cached.closeQuietly();
+        }
+        statements.clear();
+    }
+
+    /**
+     * @return Number of statements currently cached
+     */
+    synchronized int size() {
+        return statements.size();
+    }
+
+    private class CachedStatement {
+        private final String sql;
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(String sql, PreparedStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+        }
+
+        PreparedStatement newHandle(Connection owner) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                new StatementHandler(this, owner));
+        }
+
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // The connection is going away or already broken
+            }
+        }
+    }
+
+    /**
+     * Delegates to the cached statement until the caller closes it, then
+     * resets it for the next caller: open results are closed, parameters are
+     * cleared and per-use settings go back to their defaults.
+     */
+    private class StatementHandler implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private ResultSet lastResultSet;
+        private boolean settingsChanged;
+        private boolean closed;
+
+        StatementHandler(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        reset();
+                        giveBack(cached);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cached.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + cached.statement + "]";
+                case "setQueryTimeout":
+                case "setMaxRows":
+                case "setFetchSize":
+                case "setFetchDirection":
+                case "setMaxFieldSize":
+                    settingsChanged = true;
+                    break;
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+
+            try {
+                Object result = method.invoke(cached.statement, args);
+                if (result instanceof ResultSet) {
+                    lastResultSet = (ResultSet) result;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void reset() {
+            PreparedStatement statement = cached.statement;
+            try {
+                if (lastResultSet != null && !lastResultSet.isClosed()) {
+                    lastResultSet.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                if (settingsChanged) {
+                    statement.setQueryTimeout(0);
+                    statement.setMaxRows(0);
+                    statement.setFetchSize(0);
+                    statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+                    statement.setMaxFieldSize(0);
+                }
+            } catch (SQLException e) {
+                // A statement that cannot be reset is not safe to reuse
+                cached.evicted = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package model.database;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters shared by the prepared statement caches of all connections in a pool.
+ * A hot query that is never re-prepared shows a prepare count no greater than
+ * the number of physical connections that have run it.
+ * <p>
+ * Per-SQL prepare counts are kept for the {@value #MAX_TRACKED_SQL} most
+ * recently prepared statements only, since dynamically built SQL (IN lists,
+ * dashboard filters) produces an open-ended number of distinct texts.
+ */
+public class StatementCacheMetrics {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    static final int MAX_TRACKED_SQL = 256;
+    // Least recently prepared SQL is dropped first; guarded by itself
+    private final Map<String, LongAdder> preparesBySql = new LinkedHashMap<String, LongAdder>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LongAdder> eldest) {
+            return size() > MAX_TRACKED_SQL;
+        }
+    };
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss(String sql) {
+        misses.increment();
+        synchronized (preparesBySql) {
+            preparesBySql.computeIfAbsent(sql, k -> new LongAdder()).increment();
+        }
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    /**
+     * @return Number of prepareStatement calls served from a cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Number of prepareStatement calls that reached the driver
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Number of statements closed to make room in a full cache
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Fraction of prepareStatement calls served from a cache (0-1)
+     */
+    public double getHitRatio() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /**
+     * Gets how many times a statement was actually prepared by the driver
+     * @param sql The SQL text
+     * @return Number of physical prepares for that SQL, 0 if it is no longer tracked
+     */
+    public long getPrepareCount(String sql) {
+        LongAdder count;
+        synchronized (preparesBySql) {
+            count = preparesBySql.get(sql);
+        }
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @return Physical prepare counts keyed by SQL text, for the tracked statements
+     */
+    public Map<String, Long> getPrepareCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        synchronized (preparesBySql) {
+            preparesBySql.forEach((sql, count) -> counts.put(sql, count.sum()));
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StatementCache{hits=%d, misses=%d, evictions=%d, hitRatio=%.2f}",
+            getHits(), getMisses(), getEvictions(), getHitRatio());
+    }
+}
@@ -0,0 +1,240 @@
+package model.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import util.Logger;
+
+/**
+ * Unit of work bound to the current thread.
+ * While a scope is open, {@link DatabaseConnection#getConnection()} and
+ * {@link DatabaseConnection#getReadConnection()} hand out the scope's single
+ * connection, so every DAO call made by a business operation shares one
+ * connection and one transaction:
+ * <pre>
+ *     try (TransactionScope tx = TransactionScope.begin()) {
+ *         if (!registroDAO.exists(idParticipante, idActividad)) {
+ *             registroDAO.insert(registro);
+ *         }
+ *         tx.commit();
+ *     }
+ * </pre>
+ * Scopes nest: an inner begin() joins the outer transaction. Only the
+ * outermost commit() reaches the database; a rollback() or a scope closed
+ * without commit() at any level marks the whole transaction rollback-only.
+ * Closing the outermost scope without commit() rolls back.
+ * <p>
+ * DAO code that closes its connection or manages its own transaction keeps
+ * working inside a scope: close(), setAutoCommit() and commit() on the
+ * shared connection are ignored, and rollback() marks the scope
+ * rollback-only.
+ */
+public final class TransactionScope implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(TransactionScope.class);
+    private static final ThreadLocal<TransactionScope> CURRENT = new ThreadLocal<>();
+
+    private final Transaction transaction;
+    private final TransactionScope outer;
+    private boolean completed;
+
+    private TransactionScope(Transaction transaction, TransactionScope outer) {
+        this.transaction = transaction;
+        this.outer = outer;
+    }
+
+    /**
+     * Opens a scope on the current thread, joining the active transaction if there is one
+     * @return the scope; close it with try-with-resources
+     * @throws SQLException if a connection cannot be obtained
+     */
+    public static TransactionScope begin() throws SQLException {
+        TransactionScope current = CURRENT.get();
+        TransactionScope scope;
+        if (current != null) {
+            scope = new TransactionScope(current.transaction, current);
+        } else {
+            Connection connection = DatabaseConnection.getConnection();
+            try {
+                connection.setAutoCommit(false);
+            } catch (SQLException e) {
+                DatabaseConnection.closeConnection(connection);
+                throw e;
+            }
+            scope = new TransactionScope(new Transaction(connection), null);
+        }
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * @return true if the current thread has an open scope
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Gets the connection shared by the current thread's scope
+     * @return a connection whose close() is ignored, or null if no scope is open
+     */
+    static Connection currentConnection() {
+        TransactionScope current = CURRENT.get();
+        return current == null ? null : current.transaction.shared;
+    }
+
+    /**
+     * Commits the transaction if this is the outermost scope; an inner
+     * scope only records that its part succeeded
+     * @throws SQLException if the commit fails or the transaction was marked rollback-only
+     */
+    public void commit() throws SQLException {
+        checkOpen();
+        completed = true;
+        if (outer != null) {
+            return;
+        }
+        if (transaction.rollbackOnly) {
+            transaction.connection.rollback();
+            throw new SQLException("Transaction was marked rollback-only and has been rolled back");
+        }
+        transaction.connection.commit();
+        transaction.committed = true;
+    }
+
+    /**
+     * Rolls back the transaction, or marks it rollback-only when called in an inner scope
+     */
+    public void rollback() {
+        checkOpenUnchecked();
+        completed = true;
+        transaction.rollbackOnly = true;
+        if (outer == null) {
+            transaction.rollbackQuietly();
+        }
+    }
+
+    /**
+     * Marks the whole transaction so that it is rolled back at the end
+     */
+    public void setRollbackOnly() {
+        transaction.rollbackOnly = true;
+    }
+
+    /**
+     * @return true if any part of the transaction asked for a rollback
+     */
+    public boolean isRollbackOnly() {
+        return transaction.rollbackOnly;
+    }
+
+    /**
+     * Ends the scope. An outermost scope that was not committed is rolled
+     * back and its connection is returned to the pool.
+     */
+    @Override
+    public void close() {
+        if (CURRENT.get() != this) {
+            return; // Already closed, or closed out of order
+        }
+        if (!completed) {
+            transaction.rollbackOnly = true;
+        }
+        if (outer != null) {
+            CURRENT.set(outer);
+            return;
+        }
+
+        CURRENT.remove();
+        if (!transaction.committed) {
+            // Also covers a failed commit: auto-commit must not be switched back on with work pending
+            transaction.rollbackQuietly();
+        }
+        try {
+            transaction.connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            LOG.warn("Error resetting auto-commit: {}", e.getMessage());
+        }
+        DatabaseConnection.closeConnection(transaction.connection);
+    }
+
+    private void checkOpen() throws SQLException {
+        if (CURRENT.get() != this) {
+            throw new SQLException("Transaction scope is not the innermost open scope of this thread");
+        }
+    }
+
+    private void checkOpenUnchecked() {
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("Transaction scope is not the innermost open scope of this thread");
+        }
+    }
+
+    /**
+     * State shared by every scope that joined the same transaction
+     */
+    private static final class Transaction {
+        private final Connection connection;
+        private final Connection shared;
+        private boolean rollbackOnly;
+        private boolean committed;
+
+        Transaction(Connection connection) {
+            this.connection = connection;
+            this.shared = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new SharedConnectionHandler());
+        }
+
+        void rollbackQuietly() {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                LOG.warn("Error rolling back transaction: {}", e.getMessage());
+            }
+        }
+
+        /**
+         * Lets DAO code use the scope's connection as if it owned it without
+         * ending the transaction early
+         */
+        private class SharedConnectionHandler implements InvocationHandler {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                    case "commit":
+                        return null;
+                    case "setAutoCommit":
+                        return null;
+                    case "getAutoCommit":
+                        return false;
+                    case "rollback":
+                        if (args == null || args.length == 0) {
+                            rollbackOnly = true;
+                            return null;
+                        }
+                        break; // Rolling back to a savepoint stays inside the transaction
+                    case "isClosed":
+                        return connection.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "TransactionScope[" + connection + "]";
+                    default:
+                        break;
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+}
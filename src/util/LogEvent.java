@@ -0,0 +1,45 @@
+package util;
+
+/**
+ * A log call captured on the caller's thread. The message is formatted
+ * later by the writer thread, so the caller only pays for this allocation.
+ */
+final class LogEvent {
+    final long timestamp;
+    final LogLevel level;
+    final String loggerName;
+    final String threadName;
+    final String pattern;
+    final Object[] args;
+    final Throwable error;
+
+    LogEvent(LogLevel level, String loggerName, String pattern, Object[] args, Throwable error) {
+        this.timestamp = System.currentTimeMillis();
+        this.level = level;
+        this.loggerName = loggerName;
+        this.threadName = Thread.currentThread().getName();
+        this.pattern = pattern;
+        this.args = args;
+        this.error = error;
+    }
+
+    /**
+     * Replaces each {} in the pattern with the next argument
+     * @return the formatted message
+     */
+    String formatMessage() {
+        if (args == null || args.length == 0 || pattern == null) {
+            return pattern;
+        }
+        StringBuilder sb = new StringBuilder(pattern.length() + 16 * args.length);
+        int argIndex = 0;
+        int start = 0;
+        int brace;
+        while (argIndex < args.length && (brace = pattern.indexOf("{}", start)) >= 0) {
+            sb.append(pattern, start, brace).append(args[argIndex++]);
+            start = brace + 2;
+        }
+        sb.append(pattern, start, pattern.length());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,28 @@
+package util;
+
+/**
+ * Severity of a log message, from most to least verbose
+ */
+public enum LogLevel {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR;
+
+    /**
+     * Parses a level name, ignoring case
+     * @param name The level name
+     * @param defaultLevel Level returned when the name is null or unknown
+     * @return the level
+     */
+    public static LogLevel parse(String name, LogLevel defaultLevel) {
+        if (name == null) {
+            return defaultLevel;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultLevel;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The single background thread that drains the ring buffer, formats the
+ * events and appends them to a size-bounded rolling file
+ * ({@code app.log}, {@code app.log.1}, ... {@code app.log.N}).
+ */
+final class LogWriter implements Runnable {
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final LogRingBuffer buffer;
+    private final File directory;
+    private final String fileName;
+    private final long maxFileBytes;
+    private final int maxBackups;
+    private final boolean console;
+    private final AtomicLong dropped = new AtomicLong();
+    private final SimpleDateFormat timestampFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+    private final Date date = new Date();
+
+    private Writer out;
+    private long currentBytes;
+    private volatile boolean stopping;
+    private volatile Thread thread;
+
+    LogWriter(LogRingBuffer buffer, File directory, String fileName, long maxFileBytes, int maxBackups, boolean console) {
+        this.buffer = buffer;
+        this.directory = directory;
+        this.fileName = fileName;
+        this.maxFileBytes = maxFileBytes;
+        this.maxBackups = maxBackups;
+        this.console = console;
+    }
+
+    void start() {
+        Thread writerThread = new Thread(this, "log-writer");
+        writerThread.setDaemon(true);
+        thread = writerThread;
+        writerThread.start();
+    }
+
+    /**
+     * Wakes the writer so that it drains what is left, then waits for it to finish
+     */
+    void stop(long timeoutMs) {
+        stopping = true;
+        Thread writerThread = thread;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(timeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void recordDropped() {
+        dropped.incrementAndGet();
+    }
+
+    @Override
+    public void run() {
+        long parkNanos = 1000;
+        while (true) {
+            boolean wrote = drain();
+            if (wrote) {
+                parkNanos = 1000;
+                flush();
+            } else if (stopping) {
+                break;
+            } else {
+                // Back off gradually so that an idle application does not spin
+                LockSupport.parkNanos(parkNanos);
+                parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+            }
+        }
+        drain();
+        close();
+    }
+
+    private boolean drain() {
+        boolean wrote = false;
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            write(new LogEvent(LogLevel.WARN, "util.Logger", "{} log messages dropped, buffer full",
+                new Object[] { lost }, null));
+            wrote = true;
+        }
+        LogEvent event;
+        while ((event = buffer.poll()) != null) {
+            write(event);
+            wrote = true;
+        }
+        return wrote;
+    }
+
+    private void write(LogEvent event) {
+        date.setTime(event.timestamp);
+        StringBuilder line = new StringBuilder(128)
+            .append(timestampFormat.format(date))
+            .append(' ').append(event.level).append(event.level.name().length() == 4 ? " " : "")
+            .append(" [").append(event.threadName).append("] ")
+            .append(event.loggerName).append(" - ")
+            .append(event.formatMessage())
+            .append(System.lineSeparator());
+        if (event.error != null) {
+            StringWriter trace = new StringWriter();
+            event.error.printStackTrace(new PrintWriter(trace));
+            line.append(trace);
+        }
+        String text = line.toString();
+
+        if (console) {
+            (event.level.compareTo(LogLevel.WARN) >= 0 ? System.err : System.out).print(text);
+        }
+        try {
+            if (out == null || currentBytes >= maxFileBytes) {
+                roll();
+            }
+            out.write(text);
+            currentBytes += text.length();
+        } catch (IOException e) {
+            // Logging must never take the application down; fall back to the console
+            System.err.print(text);
+        }
+    }
+
+    private void roll() throws IOException {
+        close();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create log directory " + directory);
+        }
+        File current = new File(directory, fileName);
+        if (current.exists() && current.length() >= maxFileBytes) {
+            for (int i = maxBackups - 1; i >= 1; i--) {
+                File from = new File(directory, fileName + "." + i);
+                if (from.exists()) {
+                    File to = new File(directory, fileName + "." + (i + 1));
+                    to.delete();
+                    from.renameTo(to);
+                }
+            }
+            File first = new File(directory, fileName + ".1");
+            first.delete();
+            current.renameTo(first);
+        }
+        currentBytes = current.exists() ? current.length() : 0;
+        out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(current, true), StandardCharsets.UTF_8), 8192);
+    }
+
+    private void flush() {
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                System.err.println("Error writing log file: " + e.getMessage());
+            }
+        }
+    }
+
+    private void close() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                System.err.println("Error closing log file: " + e.getMessage());
+            }
+            out = null;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package util;
+
+import java.io.File;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Small asynchronous logger for the data path.
+ * A log call checks the level, captures the pattern and its arguments and
+ * publishes them to a lock-free ring buffer; formatting and file I/O happen
+ * on a single background writer thread. Messages use {} placeholders:
+ * <pre>
+ *     LOG.debug("Borrowed connection in {}ms", elapsed);
+ * </pre>
+ * A disabled level returns after one volatile read. The one- and
+ * two-argument overloads avoid the varargs array; guard anything more
+ * expensive with {@link #isDebugEnabled()}.
+ * <p>
+ * Configured with system properties: {@code log.level} (default INFO),
+ * {@code log.dir} (default logs), {@code log.file} (default app.log),
+ * {@code log.maxFileKb} (default 5120), {@code log.maxBackups} (default 5),
+ * {@code log.bufferSize} (default 8192) and {@code log.console}
+ * (default false) to echo messages to the console as well.
+ */
+public final class Logger {
+    private static final int FULL_BUFFER_RETRIES = 20;
+    private static final long FULL_BUFFER_PARK_NANOS = 100_000;
+    private static final LogRingBuffer BUFFER;
+    private static final LogWriter WRITER;
+    private static volatile LogLevel threshold;
+
+    static {
+        threshold = LogLevel.parse(System.getProperty("log.level"), LogLevel.INFO);
+        BUFFER = new LogRingBuffer(Integer.getInteger("log.bufferSize", 8192));
+        WRITER = new LogWriter(BUFFER,
+            new File(System.getProperty("log.dir", "logs")),
+            System.getProperty("log.file", "app.log"),
+            Long.getLong("log.maxFileKb", 5120) * 1024,
+            Math.max(1, Integer.getInteger("log.maxBackups", 5)),
+            Boolean.getBoolean("log.console"));
+        WRITER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> WRITER.stop(2000), "log-shutdown"));
+    }
+
+    private final String name;
+
+    private Logger(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets a logger named after a class
+     * @param type The class doing the logging
+     * @return the logger
+     */
+    public static Logger getLogger(Class<?> type) {
+        return new Logger(type.getName());
+    }
+
+    /**
+     * Changes the minimum level written for every logger
+     * @param level The new threshold
+     */
+    public static void setLevel(LogLevel level) {
+        threshold = level;
+    }
+
+    /**
+     * @return The minimum level currently written
+     */
+    public static LogLevel getLevel() {
+        return threshold;
+    }
+
+    public boolean isDebugEnabled() {
+        return threshold == LogLevel.DEBUG;
+    }
+
+    public boolean isEnabled(LogLevel level) {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    public void debug(String message) {
+        if (threshold == LogLevel.DEBUG) {
+            publish(LogLevel.DEBUG, message, null, null);
+        }
+    }
+
+    public void debug(String pattern, Object arg) {
+        if (threshold == LogLevel.DEBUG) {
+            publish(LogLevel.DEBUG, pattern, new Object[] { arg }, null);
+        }
+    }
+
+    public void debug(String pattern, Object arg1, Object arg2) {
+        if (threshold == LogLevel.DEBUG) {
+            publish(LogLevel.DEBUG, pattern, new Object[] { arg1, arg2 }, null);
+        }
+    }
+
+    public void debug(String pattern, Object... args) {
+        if (threshold == LogLevel.DEBUG) {
+            publish(LogLevel.DEBUG, pattern, args, null);
+        }
+    }
+
+    public void info(String message) {
+        log(LogLevel.INFO, message, null, null);
+    }
+
+    public void info(String pattern, Object arg) {
+        if (isEnabled(LogLevel.INFO)) {
+            publish(LogLevel.INFO, pattern, new Object[] { arg }, null);
+        }
+    }
+
+    public void info(String pattern, Object... args) {
+        log(LogLevel.INFO, pattern, args, null);
+    }
+
+    public void warn(String message) {
+        log(LogLevel.WARN, message, null, null);
+    }
+
+    public void warn(String pattern, Object arg) {
+        if (isEnabled(LogLevel.WARN)) {
+            publish(LogLevel.WARN, pattern, new Object[] { arg }, null);
+        }
+    }
+
+    public void warn(String pattern, Object... args) {
+        log(LogLevel.WARN, pattern, args, null);
+    }
+
+    public void warn(String message, Throwable error) {
+        log(LogLevel.WARN, message, null, error);
+    }
+
+    public void error(String message) {
+        log(LogLevel.ERROR, message, null, null);
+    }
+
+    public void error(String pattern, Object arg) {
+        log(LogLevel.ERROR, pattern, new Object[] { arg }, null);
+    }
+
+    public void error(String pattern, Object... args) {
+        log(LogLevel.ERROR, pattern, args, null);
+    }
+
+    public void error(String message, Throwable error) {
+        log(LogLevel.ERROR, message, null, error);
+    }
+
+    private void log(LogLevel level, String pattern, Object[] args, Throwable error) {
+        if (isEnabled(level)) {
+            publish(level, pattern, args, error);
+        }
+    }
+
+    private void publish(LogLevel level, String pattern, Object[] args, Throwable error) {
+        LogEvent event = new LogEvent(level, name, pattern, args, error);
+        if (BUFFER.offer(event)) {
+            return;
+        }
+        if (level.compareTo(LogLevel.WARN) >= 0) {
+            // Warnings and errors are worth a short wait for the writer to make room
+            for (int attempt = 0; attempt < FULL_BUFFER_RETRIES; attempt++) {
+                LockSupport.parkNanos(FULL_BUFFER_PARK_NANOS);
+                if (BUFFER.offer(event)) {
+                    return;
+                }
+            }
+        }
+        // Never block the caller for long; the writer reports how many were lost
+        WRITER.recordDropped();
+    }
+}
@@ -1,9 +1,10 @@
 package view;
 
 import controller.ActividadController;
+import controller.AppContext;
 import controller.CampanaController;
 import model.Actividad;
-import model.Campana;
+import model.CampanaResumen;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -17,7 +18,7 @@ public class ActividadFormView extends JDialog {
     private JTextArea txtDescripcion;
     private JSpinner spnFecha;
     private JTextField txtHora;
-    private JComboBox<Campana> cmbCampana;
+    private JComboBox<CampanaResumen> cmbCampana;
     private JSpinner spnCapacidad;
     private JComboBox<String> cmbEstado;
     private JButton btnGuardar;
@@ -29,8 +30,8 @@ public class ActividadFormView extends JDialog {
     
     public ActividadFormView(Actividad actividad) {
         this.actividadActual = actividad;
-        this.actividadController = new ActividadController();
-        this.campanaController = new CampanaController();
+        this.actividadController = AppContext.get().getActividadController();
+        this.campanaController = AppContext.get().getCampanaController();
         
         setTitle(actividad == null ? "Nueva Actividad" : "Editar Actividad");
         setModal(true);
@@ -67,8 +68,8 @@ public class ActividadFormView extends JDialog {
             public Component getListCellRendererComponent(JList<?> list, Object value, 
                     int index, boolean isSelected, boolean cellHasFocus) {
                 super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-                if (value instanceof Campana) {
-                    Campana campana = (Campana) value;
+                if (value instanceof CampanaResumen) {
+                    CampanaResumen campana = (CampanaResumen) value;
                     setText(campana.getNombre());
                 }
                 return this;
@@ -168,8 +169,8 @@ public class ActividadFormView extends JDialog {
     private void loadData() {
         // Load campaigns
         try {
-            List<Campana> campanas = campanaController.listarCampanas();
-            for (Campana campana : campanas) {
+            List<CampanaResumen> campanas = campanaController.listarCampanasResumen();
+            for (CampanaResumen campana : campanas) {
                 cmbCampana.addItem(campana);
             }
         } catch (Exception e) {
@@ -190,7 +191,7 @@ public class ActividadFormView extends JDialog {
             
             // Select the appropriate campaign
             for (int i = 0; i < cmbCampana.getItemCount(); i++) {
-                Campana campana = cmbCampana.getItemAt(i);
+                CampanaResumen campana = cmbCampana.getItemAt(i);
                 if (campana.getIdCampana() == actividadActual.getIdCampana()) {
                     cmbCampana.setSelectedItem(campana);
                     break;
@@ -231,7 +232,7 @@ public class ActividadFormView extends JDialog {
             String descripcion = txtDescripcion.getText().trim();
             Date fecha = (Date) spnFecha.getValue();
             String hora = txtHora.getText().trim();
-            Campana campanaSeleccionada = (Campana) cmbCampana.getSelectedItem();
+            CampanaResumen campanaSeleccionada = (CampanaResumen) cmbCampana.getSelectedItem();
             int capacidad = (Integer) spnCapacidad.getValue();
             String estado = (String) cmbEstado.getSelectedItem();
             
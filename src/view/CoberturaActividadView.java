@@ -1,26 +1,50 @@
 package view;
 
 import controller.ActividadController;
+import controller.AppContext;
 import controller.RegistroParticipacionController;
 import model.Actividad;
+import model.ActividadResumen;
 import model.RegistroParticipacion;
+import model.dao.Page;
+import model.database.ChangeNotifier;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CoberturaActividadView extends JFrame {
     private JTable tblCobertura;
     private JComboBox<String> cmbActividad;
     private JLabel lblTotalParticipantes;
     private JLabel lblCobertura;
+    private JButton btnCargarMas;
+    
+    // Registros por página y último registro mostrado de la actividad seleccionada
+    private static final int TAMANO_PAGINA = 200;
+    private int idActividadActual;
+    private int ultimoIdRegistro;
+    
+    // Registros cargados o modificados desde otros puestos; varios cambios
+    // seguidos se aplican con un único refresco
+    private final AtomicBoolean refrescoPendiente = new AtomicBoolean();
+    private volatile boolean recargaCompleta;
+    private final ChangeNotifier.Listener cambiosRegistro = (tabla, cambios) -> {
+        if (cambios.isResync() || cambios.getIds(ChangeNotifier.Operation.INSERT).size() < cambios.size()) {
+            recargaCompleta = true;
+        }
+        if (refrescoPendiente.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::aplicarCambios);
+        }
+    };
     
     private final ActividadController actividadController;
     private final RegistroParticipacionController registroController;
     
     public CoberturaActividadView() {
-        actividadController = new ActividadController();
-        registroController = new RegistroParticipacionController();
+        actividadController = AppContext.get().getActividadController();
+        registroController = AppContext.get().getRegistroParticipacionController();
         
         setTitle("Cobertura y Resultados por Actividad");
         setSize(800, 600);
@@ -29,6 +53,13 @@ public class CoberturaActividadView extends JFrame {
         
         initComponents();
         cargarActividades();
+        ChangeNotifier.addListener("RegistroParticipacion", cambiosRegistro);
+    }
+    
+    @Override
+    public void dispose() {
+        ChangeNotifier.removeListener("RegistroParticipacion", cambiosRegistro);
+        super.dispose();
     }
     
     private void initComponents() {
@@ -61,15 +92,23 @@ public class CoberturaActividadView extends JFrame {
         JScrollPane scrollPane = new JScrollPane(tblCobertura);
         add(scrollPane, BorderLayout.CENTER);
         
+        // Panel inferior para pedir la siguiente página de registros
+        JPanel panelInferior = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        btnCargarMas = new JButton("Cargar más");
+        btnCargarMas.setEnabled(false);
+        btnCargarMas.addActionListener(e -> cargarMasRegistros());
+        panelInferior.add(btnCargarMas);
+        add(panelInferior, BorderLayout.SOUTH);
+        
         // Agregar listener al combobox
         cmbActividad.addActionListener(e -> cargarDatosCobertura());
     }
     
     private void cargarActividades() {
         try {
-            List<Actividad> actividades = actividadController.listarActividades();
+            List<ActividadResumen> actividades = actividadController.listarActividadesResumen();
             cmbActividad.removeAllItems();
-            for (Actividad actividad : actividades) {
+            for (ActividadResumen actividad : actividades) {
                 cmbActividad.addItem(actividad.getIdActividad() + " - " + actividad.getNombre());
             }
         } catch (Exception e) {
@@ -86,14 +125,78 @@ public class CoberturaActividadView extends JFrame {
             if (actividadSeleccionada == null) return;
             
             int idActividad = Integer.parseInt(actividadSeleccionada.split(" - ")[0]);
-            List<RegistroParticipacion> registros = registroController.listarRegistrosPorActividad(idActividad);
             
-            // Limpiar tabla
+            // Limpiar tabla y cargar la primera página
             DefaultTableModel model = (DefaultTableModel) tblCobertura.getModel();
             model.setRowCount(0);
+            idActividadActual = idActividad;
+            ultimoIdRegistro = 0;
+            cargarMasRegistros();
+            actualizarEstadisticas();
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this,
+                "Error al cargar los datos de cobertura: " + e.getMessage(),
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    /**
+     * Actualiza total y cobertura de la actividad seleccionada; el total se
+     * cuenta en la base, no en la página cargada
+     */
+    private void actualizarEstadisticas() {
+        Actividad actividad = actividadController.obtenerActividadPorId(idActividadActual);
+        if (actividad != null) {
+            int totalParticipantes = registroController.contarParticipantesPorActividad(idActividadActual);
+            int cupoMaximo = actividad.getCupoMaximo();
+            double cobertura = cupoMaximo > 0 ? (totalParticipantes * 100.0 / cupoMaximo) : 0;
+            
+            lblTotalParticipantes.setText("Total participantes: " + totalParticipantes);
+            lblCobertura.setText(String.format("Cobertura: %.1f%%", cobertura));
+        }
+    }
+    
+    /**
+     * Refleja los cambios hechos desde otros puestos. Las altas se agregan al
+     * final si ya se cargaron todas las páginas; bajas y modificaciones
+     * recargan la actividad desde el principio.
+     */
+    private void aplicarCambios() {
+        refrescoPendiente.set(false);
+        boolean completa = recargaCompleta;
+        recargaCompleta = false;
+        if (idActividadActual == 0 || !isDisplayable()) {
+            return;
+        }
+        if (completa) {
+            cargarDatosCobertura();
+            return;
+        }
+        try {
+            if (!btnCargarMas.isEnabled()) {
+                cargarMasRegistros();
+            }
+            actualizarEstadisticas();
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this,
+                "Error al actualizar los datos de cobertura: " + e.getMessage(),
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    /**
+     * Agrega a la tabla la siguiente página de registros de la actividad seleccionada
+     */
+    private void cargarMasRegistros() {
+        try {
+            Page<RegistroParticipacion> pagina = registroController.listarRegistrosPorActividadPaginados(
+                idActividadActual, ultimoIdRegistro, TAMANO_PAGINA);
+            DefaultTableModel model = (DefaultTableModel) tblCobertura.getModel();
             
             // Llenar tabla
-            for (RegistroParticipacion registro : registros) {
+            for (RegistroParticipacion registro : pagina.getItems()) {
                 if (registro.getParticipante() != null) {
                     model.addRow(new Object[]{
                         registro.getIdParticipante(),
@@ -106,20 +209,13 @@ public class CoberturaActividadView extends JFrame {
                     });
                 }
             }
-            
-            // Actualizar estadísticas
-            Actividad actividad = actividadController.obtenerActividadPorId(idActividad);
-            if (actividad != null) {
-                int totalParticipantes = registros.size();
-                int cupoMaximo = actividad.getCupoMaximo();
-                double cobertura = cupoMaximo > 0 ? (totalParticipantes * 100.0 / cupoMaximo) : 0;
-                
-                lblTotalParticipantes.setText("Total participantes: " + totalParticipantes);
-                lblCobertura.setText(String.format("Cobertura: %.1f%%", cobertura));
+            if (!pagina.isEmpty()) {
+                ultimoIdRegistro = pagina.getLast().getIdRegistro();
             }
+            btnCargarMas.setEnabled(pagina.hasNext());
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this,
-                "Error al cargar los datos de cobertura: " + e.getMessage(),
+                "Error al cargar los registros: " + e.getMessage(),
                 "Error",
                 JOptionPane.ERROR_MESSAGE);
         }
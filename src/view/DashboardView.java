@@ -12,6 +12,7 @@ import javax.swing.table.*;
 import model.*;
 import controller.*;
 import model.database.DatabaseConnection;
+import util.Logger;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -22,9 +23,14 @@ import java.sql.Connection;
 import java.sql.Statement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.CompletionException;
+import model.database.DatabaseHealthMonitor;
+import model.database.QueryExecutor;
+import model.database.Dialect;
 import model.database.DatabaseConnection;
 
 public class DashboardView extends BaseForm {
+    private static final Logger LOG = Logger.getLogger(DashboardView.class);
     private JPanel mainPanel;
     private JPanel statsPanel;
     private JPanel chartsPanel;
@@ -32,27 +38,34 @@ public class DashboardView extends BaseForm {
     private DefaultTableModel tableModel;
     private JComboBox<String> timeRangeCombo;
     private JComboBox<String> campaignTypeCombo;
-    
-    private Connection connection;
+    private boolean datosDesactualizados;
+    private final QueryExecutor consultas = new QueryExecutor("DashboardView");
+    private final DatabaseHealthMonitor.Listener recoveryListener = (previous, current) -> {
+        // Al recuperarse la base de datos se vuelve a cargar el dashboard
+        if (previous == DatabaseHealthMonitor.Readiness.DOWN && current != DatabaseHealthMonitor.Readiness.DOWN) {
+            SwingUtilities.invokeLater(() -> {
+                if (datosDesactualizados) {
+                    updateDashboard();
+                }
+            });
+        }
+    };
     
     public DashboardView() {
         super("Dashboard - Registro Digital de Campañas de Salud");
-        try {
-            connection = DatabaseConnection.getConnection();
-        } catch (SQLException e) {
-            System.err.println("Error connecting to database: " + e.getMessage());
-            // Show error dialog to user
-            JOptionPane.showMessageDialog(this, 
-                "Error de conexión a la base de datos: " + e.getMessage(), 
-                "Error de Conexión", 
-                JOptionPane.ERROR_MESSAGE);
-        }
-        
         setupLayout();
         initializeComponents();
+        DatabaseHealthMonitor.addListener(recoveryListener);
         loadData();
     }
     
+    @Override
+    public void dispose() {
+        DatabaseHealthMonitor.removeListener(recoveryListener);
+        consultas.cancelAll();
+        super.dispose();
+    }
+    
     @Override
     protected void setupLayout() {
         setSize(1200, 800);
@@ -127,29 +140,69 @@ public class DashboardView extends BaseForm {
     }
     
     private void updateDashboard() {
-        // Update statistics
-        updateStatistics();
-        
-        // Update charts
-        updateCharts();
-    }
-    
-    private void updateStatistics() {
-        // Get data based on selected filters
+        // Los filtros se leen en el EDT; las consultas se ejecutan en segundo plano
         String timeRange = (String) timeRangeCombo.getSelectedItem();
         String campaignType = (String) campaignTypeCombo.getSelectedItem();
         
-        // Update statistics cards with real data
-        int totalCampanas = getTotalCampanas();
-        int totalParticipantes = getTotalParticipantes();
-        double coberturaPromedio = getCoberturaPromedio();
-        int actividadesCompletadas = getActividadesCompletadas();
+        // Sin base de datos se conservan los datos ya mostrados en lugar de esperar un timeout
+        if (!DatabaseHealthMonitor.isAvailable()) {
+            datosDesactualizados = true;
+            return;
+        }
         
+        // Un cambio de filtro cancela las consultas de la selección anterior que sigan en curso
+        QueryExecutor.Request request = consultas.newRequest();
+        DatabaseConnection.getReadConnectionAsync()
+            .thenApplyAsync(connection -> {
+                try (request; Connection conn = connection) {
+                    return loadSnapshot(conn, request, timeRange, campaignType);
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                }
+            }, DatabaseConnection.getAsyncExecutor())
+            .whenComplete((snapshot, error) -> SwingUtilities.invokeLater(() -> {
+                if (request.isCancelled()) {
+                    return; // Reemplazada por una selección más reciente
+                }
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    LOG.error("Error loading dashboard: {}", cause.getMessage());
+                    datosDesactualizados = true;
+                    showError("Error de conexión a la base de datos: " + cause.getMessage());
+                    return;
+                }
+                datosDesactualizados = false;
+                // Update statistics
+                updateStatistics(snapshot);
+                
+                // Update charts
+                updateCharts(snapshot);
+            }));
+    }
+    
+    /**
+     * Runs every dashboard query on a single pooled connection. The queries
+     * stop as soon as a newer filter selection replaces the request.
+     */
+    private DashboardSnapshot loadSnapshot(Connection connection, QueryExecutor.Request request, String timeRange, String campaignType) throws SQLException {
+        DashboardSnapshot snapshot = new DashboardSnapshot();
+        snapshot.totalCampanas = getTotalCampanas(connection, request);
+        snapshot.totalParticipantes = getTotalParticipantes(connection, request);
+        snapshot.coberturaPromedio = getCoberturaPromedio(connection, request);
+        snapshot.actividadesCompletadas = getActividadesCompletadas(connection, request);
+        snapshot.participacionPorMes = getParticipacionPorMes(connection, request);
+        snapshot.campanasPorEstado = getCampanasPorEstado(connection, request);
+        snapshot.coberturaPorActividad = getCoberturaPorActividad(connection, request, timeRange, campaignType);
+        snapshot.actividadesPorEstado = getActividadesPorEstado(connection, request);
+        return snapshot;
+    }
+    
+    private void updateStatistics(DashboardSnapshot snapshot) {
         // Update the stat cards
-        updateStatCard(0, String.valueOf(totalCampanas));
-        updateStatCard(1, String.valueOf(totalParticipantes));
-        updateStatCard(2, String.format("%.1f%%", coberturaPromedio));
-        updateStatCard(3, String.valueOf(actividadesCompletadas));
+        updateStatCard(0, String.valueOf(snapshot.totalCampanas));
+        updateStatCard(1, String.valueOf(snapshot.totalParticipantes));
+        updateStatCard(2, String.format("%.1f%%", snapshot.coberturaPromedio));
+        updateStatCard(3, String.valueOf(snapshot.actividadesCompletadas));
     }
     
     private void updateStatCard(int index, String value) {
@@ -158,48 +211,25 @@ public class DashboardView extends BaseForm {
         valueLabel.setText(value);
     }
     
-    private void updateCharts() {
+    private void updateCharts(DashboardSnapshot snapshot) {
         // Clear existing charts
         chartsPanel.removeAll();
         
         // Create new charts
-        createParticipationTrendChart();
-        createCampaignTypeChart();
-        createCoverageChart();
-        createCompletionRateChart();
+        createParticipationTrendChart(snapshot.participacionPorMes);
+        createCampaignTypeChart(snapshot.campanasPorEstado);
+        createCoverageChart(snapshot.coberturaPorActividad);
+        createCompletionRateChart(snapshot.actividadesPorEstado);
         
         // Refresh the panel
         chartsPanel.revalidate();
         chartsPanel.repaint();
     }
     
-    private void createParticipationTrendChart() {
+    private void createParticipationTrendChart(Map<String, Integer> participacionPorMes) {
         JPanel chartPanel = new JPanel(new BorderLayout());
         chartPanel.setBorder(BorderFactory.createTitledBorder("Tendencia de Participación"));
         
-        // Obtener datos de participación por mes
-        Map<String, Integer> participacionPorMes = new TreeMap<>();
-        String query = """
-            SELECT YEAR(a.fecha) * 100 + MONTH(a.fecha) as mes_num, 
-                   CAST(YEAR(a.fecha) AS VARCHAR) + '-' + 
-                   RIGHT('0' + CAST(MONTH(a.fecha) AS VARCHAR), 2) as mes, 
-                   COUNT(rp.idParticipante) as total
-            FROM Actividad a
-            LEFT JOIN RegistroParticipacion rp ON a.idActividad = rp.idActividad
-            GROUP BY YEAR(a.fecha), MONTH(a.fecha)
-            ORDER BY mes_num
-        """;
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                participacionPorMes.put(rs.getString("mes"), rs.getInt("total"));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
         // Crear gráfico de barras
         JFreeChart chart = ChartFactory.createBarChart(
             "Participación por Mes",
@@ -219,24 +249,10 @@ public class DashboardView extends BaseForm {
         chartsPanel.add(chartPanel);
     }
     
-    private void createCampaignTypeChart() {
+    private void createCampaignTypeChart(Map<String, Integer> campanasPorTipo) {
         JPanel chartPanel = new JPanel(new BorderLayout());
         chartPanel.setBorder(BorderFactory.createTitledBorder("Campañas por Estado"));
         
-        // Obtener datos de campañas por estado
-        Map<String, Integer> campanasPorTipo = new HashMap<>();
-        String query = "SELECT estado, COUNT(*) as total FROM Campana GROUP BY estado";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                campanasPorTipo.put(rs.getString("estado"), rs.getInt("total"));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
         // Crear gráfico circular
         JFreeChart chart = ChartFactory.createPieChart(
             "Distribución de Campañas por Estado",
@@ -253,68 +269,10 @@ public class DashboardView extends BaseForm {
         chartsPanel.add(chartPanel);
     }
     
-    private void createCoverageChart() {
+    private void createCoverageChart(Map<String, Double> coberturaPorActividad) {
         JPanel chartPanel = new JPanel(new BorderLayout());
         chartPanel.setBorder(BorderFactory.createTitledBorder("Cobertura por Actividad"));
         
-        // Obtener los filtros seleccionados
-        String timeRange = (String) timeRangeCombo.getSelectedItem();
-        String campaignType = (String) campaignTypeCombo.getSelectedItem();
-        
-        // Obtener datos de cobertura con filtros
-        Map<String, Double> coberturaPorActividad = new LinkedHashMap<>();
-        StringBuilder queryBuilder = new StringBuilder();
-        queryBuilder.append("""
-            SELECT a.nombre, 
-                   CAST(a.participantesRegistrados AS FLOAT) / NULLIF(a.capacidad, 0) * 100 as cobertura
-            FROM Actividad a
-            INNER JOIN Campana c ON a.idCampana = c.idCampana
-            WHERE 1=1
-        """);
-        
-        // Aplicar filtro de período
-        if (timeRange != null && !timeRange.equals("Todo")) {
-            switch (timeRange) {
-                case "Último mes":
-                    queryBuilder.append(" AND a.fecha >= DATEADD(MONTH, -1, GETDATE())");
-                    break;
-                case "Últimos 3 meses":
-                    queryBuilder.append(" AND a.fecha >= DATEADD(MONTH, -3, GETDATE())");
-                    break;
-                case "Último año":
-                    queryBuilder.append(" AND a.fecha >= DATEADD(YEAR, -1, GETDATE())");
-                    break;
-            }
-        }
-        
-        // Aplicar filtro de tipo de campaña (por estado de campaña)
-        if (campaignType != null && !campaignType.equals("Todas las campañas")) {
-            switch (campaignType) {
-                case "Vacunación":
-                    queryBuilder.append(" AND (a.nombre LIKE '%vacun%' OR a.descripcion LIKE '%vacun%')");
-                    break;
-                case "Chequeo médico":
-                    queryBuilder.append(" AND (a.nombre LIKE '%chequeo%' OR a.nombre LIKE '%medico%' OR a.descripcion LIKE '%chequeo%' OR a.descripcion LIKE '%medico%')");
-                    break;
-                case "Educación sanitaria":
-                    queryBuilder.append(" AND (a.nombre LIKE '%educacion%' OR a.nombre LIKE '%sanitaria%' OR a.descripcion LIKE '%educacion%' OR a.descripcion LIKE '%sanitaria%')");
-                    break;
-            }
-        }
-        
-        queryBuilder.append(" ORDER BY a.nombre");
-        String query = queryBuilder.toString();
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                coberturaPorActividad.put(rs.getString("nombre"), rs.getDouble("cobertura"));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
         // Crear gráfico de barras
         JFreeChart chart = ChartFactory.createBarChart(
             "Cobertura por Actividad",
@@ -334,24 +292,10 @@ public class DashboardView extends BaseForm {
         chartsPanel.add(chartPanel);
     }
     
-    private void createCompletionRateChart() {
+    private void createCompletionRateChart(Map<String, Integer> completitudPorEstado) {
         JPanel chartPanel = new JPanel(new BorderLayout());
         chartPanel.setBorder(BorderFactory.createTitledBorder("Tasa de Completitud"));
         
-        // Obtener datos de completitud
-        Map<String, Integer> completitudPorEstado = new HashMap<>();
-        String query = "SELECT estado, COUNT(*) as total FROM Actividad GROUP BY estado";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                completitudPorEstado.put(rs.getString("estado"), rs.getInt("total"));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
         // Crear gráfico circular
         JFreeChart chart = ChartFactory.createPieChart(
             "Estado de Actividades",
@@ -389,35 +333,31 @@ public class DashboardView extends BaseForm {
     }
     
     // Statistics methods
-    private int getTotalCampanas() {
+    private int getTotalCampanas(Connection connection, QueryExecutor.Request request) throws SQLException {
         String query = "SELECT COUNT(*) as total FROM Campana";
-        try (Statement stmt = connection.createStatement();
+        try (Statement stmt = request.createStatement(connection, QueryExecutor.QueryClass.REPORT);
              ResultSet rs = stmt.executeQuery(query)) {
             
             if (rs.next()) {
                 return rs.getInt("total");
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
         return 0;
     }
     
-    private int getTotalParticipantes() {
+    private int getTotalParticipantes(Connection connection, QueryExecutor.Request request) throws SQLException {
         String query = "SELECT COUNT(*) as total FROM Participante";
-        try (Statement stmt = connection.createStatement();
+        try (Statement stmt = request.createStatement(connection, QueryExecutor.QueryClass.REPORT);
              ResultSet rs = stmt.executeQuery(query)) {
             
             if (rs.next()) {
                 return rs.getInt("total");
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
         return 0;
     }
     
-    private double getCoberturaPromedio() {
+    private double getCoberturaPromedio(Connection connection, QueryExecutor.Request request) throws SQLException {
         String query = """
             SELECT AVG(CAST(a.participantesRegistrados AS FLOAT) / NULLIF(a.capacidad, 0)) * 100 as cobertura
             FROM Actividad a
@@ -425,29 +365,151 @@ public class DashboardView extends BaseForm {
             WHERE a.estado = 'finalizada'
         """;
         
-        try (Statement stmt = connection.createStatement();
+        try (Statement stmt = request.createStatement(connection, QueryExecutor.QueryClass.REPORT);
              ResultSet rs = stmt.executeQuery(query)) {
             
             if (rs.next()) {
                 return rs.getDouble("cobertura");
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
         return 0.0;
     }
     
-    private int getActividadesCompletadas() {
+    private int getActividadesCompletadas(Connection connection, QueryExecutor.Request request) throws SQLException {
         String query = "SELECT COUNT(*) as total FROM Actividad WHERE estado = 'finalizada'";
-        try (Statement stmt = connection.createStatement();
+        try (Statement stmt = request.createStatement(connection, QueryExecutor.QueryClass.REPORT);
              ResultSet rs = stmt.executeQuery(query)) {
             
             if (rs.next()) {
                 return rs.getInt("total");
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
         return 0;
     }
-} 
\ No newline at end of file
+    
+    // Chart data methods
+    private Map<String, Integer> getParticipacionPorMes(Connection connection, QueryExecutor.Request request) throws SQLException {
+        // Obtener datos de participación por mes
+        Map<String, Integer> participacionPorMes = new TreeMap<>();
+        // La etiqueta "yyyy-MM" depende del motor (SQL Server o base embebida)
+        String query = """
+            SELECT YEAR(a.fecha) * 100 + MONTH(a.fecha) as mes_num, 
+                   MIN(%s) as mes, 
+                   COUNT(rp.idParticipante) as total
+            FROM Actividad a
+            LEFT JOIN RegistroParticipacion rp ON a.idActividad = rp.idActividad
+            GROUP BY YEAR(a.fecha), MONTH(a.fecha)
+            ORDER BY mes_num
+        """.formatted(DatabaseConnection.getDialect().yearMonthLabel("a.fecha"));
+        
+        try (Statement stmt = request.createStatement(connection, QueryExecutor.QueryClass.REPORT);
+             ResultSet rs = stmt.executeQuery(query)) {
+            
+            while (rs.next()) {
+                participacionPorMes.put(rs.getString("mes"), rs.getInt("total"));
+            }
+        }
+        return participacionPorMes;
+    }
+    
+    private Map<String, Integer> getCampanasPorEstado(Connection connection, QueryExecutor.Request request) throws SQLException {
+        // Obtener datos de campañas por estado
+        Map<String, Integer> campanasPorTipo = new HashMap<>();
+        String query = "SELECT estado, COUNT(*) as total FROM Campana GROUP BY estado";
+        
+        try (Statement stmt = request.createStatement(connection, QueryExecutor.QueryClass.REPORT);
+             ResultSet rs = stmt.executeQuery(query)) {
+            
+            while (rs.next()) {
+                campanasPorTipo.put(rs.getString("estado"), rs.getInt("total"));
+            }
+        }
+        return campanasPorTipo;
+    }
+    
+    private Map<String, Double> getCoberturaPorActividad(Connection connection, QueryExecutor.Request request, String timeRange, String campaignType) throws SQLException {
+        // Obtener datos de cobertura con filtros
+        Map<String, Double> coberturaPorActividad = new LinkedHashMap<>();
+        StringBuilder queryBuilder = new StringBuilder();
+        queryBuilder.append("""
+            SELECT a.nombre, 
+                   CAST(a.participantesRegistrados AS FLOAT) / NULLIF(a.capacidad, 0) * 100 as cobertura
+            FROM Actividad a
+            INNER JOIN Campana c ON a.idCampana = c.idCampana
+            WHERE 1=1
+        """);
+        
+        // Aplicar filtro de período
+        if (timeRange != null && !timeRange.equals("Todo")) {
+            Dialect dialect = DatabaseConnection.getDialect();
+            String ahora = dialect.currentTimestamp();
+            switch (timeRange) {
+                case "Último mes":
+                    queryBuilder.append(" AND a.fecha >= ").append(dialect.addMonths(ahora, -1));
+                    break;
+                case "Últimos 3 meses":
+                    queryBuilder.append(" AND a.fecha >= ").append(dialect.addMonths(ahora, -3));
+                    break;
+                case "Último año":
+                    queryBuilder.append(" AND a.fecha >= ").append(dialect.addMonths(ahora, -12));
+                    break;
+            }
+        }
+        
+        // Aplicar filtro de tipo de campaña (por estado de campaña)
+        if (campaignType != null && !campaignType.equals("Todas las campañas")) {
+            switch (campaignType) {
+                case "Vacunación":
+                    queryBuilder.append(" AND (a.nombre LIKE '%vacun%' OR a.descripcion LIKE '%vacun%')");
+                    break;
+                case "Chequeo médico":
+                    queryBuilder.append(" AND (a.nombre LIKE '%chequeo%' OR a.nombre LIKE '%medico%' OR a.descripcion LIKE '%chequeo%' OR a.descripcion LIKE '%medico%')");
+                    break;
+                case "Educación sanitaria":
+                    queryBuilder.append(" AND (a.nombre LIKE '%educacion%' OR a.nombre LIKE '%sanitaria%' OR a.descripcion LIKE '%educacion%' OR a.descripcion LIKE '%sanitaria%')");
+                    break;
+            }
+        }
+        
+        queryBuilder.append(" ORDER BY a.nombre");
+        String query = queryBuilder.toString();
+        
+        try (Statement stmt = request.createStatement(connection, QueryExecutor.QueryClass.REPORT);
+             ResultSet rs = stmt.executeQuery(query)) {
+            
+            while (rs.next()) {
+                coberturaPorActividad.put(rs.getString("nombre"), rs.getDouble("cobertura"));
+            }
+        }
+        return coberturaPorActividad;
+    }
+    
+    private Map<String, Integer> getActividadesPorEstado(Connection connection, QueryExecutor.Request request) throws SQLException {
+        // Obtener datos de completitud
+        Map<String, Integer> completitudPorEstado = new HashMap<>();
+        String query = "SELECT estado, COUNT(*) as total FROM Actividad GROUP BY estado";
+        
+        try (Statement stmt = request.createStatement(connection, QueryExecutor.QueryClass.REPORT);
+             ResultSet rs = stmt.executeQuery(query)) {
+            
+            while (rs.next()) {
+                completitudPorEstado.put(rs.getString("estado"), rs.getInt("total"));
+            }
+        }
+        return completitudPorEstado;
+    }
+    
+    /**
+     * Datos del dashboard cargados en segundo plano y pintados en el EDT
+     */
+    private static class DashboardSnapshot {
+        int totalCampanas;
+        int totalParticipantes;
+        double coberturaPromedio;
+        int actividadesCompletadas;
+        Map<String, Integer> participacionPorMes;
+        Map<String, Integer> campanasPorEstado;
+        Map<String, Double> coberturaPorActividad;
+        Map<String, Integer> actividadesPorEstado;
+    }
+}
\ No newline at end of file
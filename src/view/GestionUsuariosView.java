@@ -1,5 +1,6 @@
 package view;
 
+import controller.AppContext;
 import controller.UsuarioController;
 import model.Usuario;
 import javax.swing.*;
@@ -21,7 +22,7 @@ public class GestionUsuariosView extends JFrame {
     private final UsuarioController usuarioController;
     
     public GestionUsuariosView() {
-        usuarioController = new UsuarioController();
+        usuarioController = AppContext.get().getUsuarioController();
         
         setTitle("Gestión de Usuarios");
         setSize(800, 600);
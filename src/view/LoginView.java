@@ -1,11 +1,18 @@
 package view;
 
+import controller.AppContext;
 import controller.UsuarioController;
 import model.Usuario;
+import model.database.DatabaseConnection;
 import javax.swing.*;
 import java.awt.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import util.Logger;
 
 public class LoginView extends BaseForm {
+    private static final Logger LOG = Logger.getLogger(LoginView.class);
+    
     private JTextField txtDni;
     private JPasswordField txtContrasena;
     private JButton btnIngresar;
@@ -15,19 +22,12 @@ public class LoginView extends BaseForm {
     
     public LoginView() {
         super("Registro Digital de Campañas de Salud Comunitarias - Login");
-        System.out.println("LoginView: Constructor iniciado");
-        
-        this.usuarioController = new UsuarioController();
-        System.out.println("LoginView: UsuarioController creado");
-        
+        this.usuarioController = AppContext.get().getUsuarioController();
         setupLayout();
-        System.out.println("LoginView: Layout configurado");
     }
     
     @Override
     protected void setupLayout() {
-        System.out.println("LoginView: Configurando layout...");
-        
         // Form panel
         JPanel formPanel = new JPanel(new GridBagLayout());
         GridBagConstraints gbc = new GridBagConstraints();
@@ -75,8 +75,6 @@ public class LoginView extends BaseForm {
                 }
             }
         });
-        
-        System.out.println("LoginView: Layout configurado correctamente");
     }
     
     private void login() {
@@ -88,23 +86,33 @@ public class LoginView extends BaseForm {
             return;
         }
         
-        try {
-            Usuario usuario = usuarioController.autenticarUsuario(dni, contrasena);
-            
-            if (usuario != null) {
-                handleLoginSuccess(usuario);
-            } else {
-                showError("DNI o contraseña incorrectos");
-                txtContrasena.setText("");
-                txtContrasena.requestFocus();
-            }
-        } catch (Exception e) {
-            showError("Error al intentar iniciar sesión: " + e.getMessage());
-        }
+        // La autenticación se ejecuta fuera del EDT para que la ventana no se congele
+        btnIngresar.setEnabled(false);
+        CompletableFuture
+            .supplyAsync(() -> {
+                try {
+                    return usuarioController.autenticarUsuario(dni, contrasena);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, DatabaseConnection.getAsyncExecutor())
+            .whenComplete((usuario, error) -> SwingUtilities.invokeLater(() -> {
+                btnIngresar.setEnabled(true);
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    showError("Error al intentar iniciar sesión: " + cause.getMessage());
+                } else if (usuario != null) {
+                    handleLoginSuccess(usuario);
+                } else {
+                    showError("DNI o contraseña incorrectos");
+                    txtContrasena.setText("");
+                    txtContrasena.requestFocus();
+                }
+            }));
     }
     
     private void handleLoginSuccess(Usuario usuario) {
-        System.out.println("Login exitoso para: " + usuario.getNombre() + " " + usuario.getApellido());
+        LOG.debug("Login exitoso para: {} {}", usuario.getNombre(), usuario.getApellido());
         
         // Mostrar información del usuario
         String mensaje = String.format(
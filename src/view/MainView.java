@@ -1,5 +1,6 @@
 package view;
 
+import controller.AppContext;
 import controller.CampanaController;
 import controller.ParticipanteController;
 import controller.PrediccionController;
@@ -17,14 +18,21 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.ListSelectionModel;
 import model.Usuario;
 import model.Actividad;
-import model.Campana;
 import model.Prediccion;
+import model.Participante;
+import model.dao.Page;
+import model.dao.ParticipanteImport;
+import model.database.DatabaseBootstrap;
+import model.database.DatabaseHealthMonitor;
+import model.database.LatencyHistogram;
 import javax.swing.*;
 import java.awt.*;
+import java.io.File;
 import java.util.List;
 
 /**
@@ -36,9 +44,20 @@ public class MainView extends BaseForm {
     private final CampanaController campanaController;
     private final ParticipanteController participanteController;
     private final PrediccionController prediccionController;
+    private final ActividadController actividadController;
     
     private JPanel cardPanel;
     private CardLayout cardLayout;
+    private JLabel lblEstadoBD;
+    
+    // Paginación de los listados: última fila mostrada, desde donde sigue la próxima página
+    private static final int TAMANO_PAGINA = 200;
+    private Actividad ultimaActividad;
+    private Participante ultimoParticipante;
+    private JButton btnMasActividades;
+    private JButton btnMasParticipantes;
+    private final DatabaseHealthMonitor.Listener estadoBDListener =
+        (anterior, actual) -> SwingUtilities.invokeLater(this::actualizarEstadoBD);
     
     // Nombres de paneles
     private static final String PANEL_DASHBOARD = "dashboard";
@@ -56,10 +75,12 @@ public class MainView extends BaseForm {
         }
         
         this.usuarioActual = usuario;
-        this.usuarioController = new UsuarioController();
-        this.campanaController = new CampanaController();
-        this.participanteController = new ParticipanteController();
-        this.prediccionController = new PrediccionController();
+        AppContext context = AppContext.get();
+        this.usuarioController = context.getUsuarioController();
+        this.campanaController = context.getCampanaController();
+        this.participanteController = context.getParticipanteController();
+        this.prediccionController = context.getPrediccionController();
+        this.actividadController = context.getActividadController();
         
         // Inicializar diseño después de configurar todos los campos
         setupLayout();
@@ -91,10 +112,66 @@ public class MainView extends BaseForm {
         // Add card panel to content panel
         contentPanel.add(cardPanel, BorderLayout.CENTER);
         
+        // Indicador del estado de la base de datos, alimentado por el heartbeat
+        lblEstadoBD = new JLabel() {
+            @Override
+            public String getToolTipText() {
+                LatencyHistogram latencias = DatabaseHealthMonitor.getLatencyHistogram();
+                return String.format("Latencia p50: %.1f ms, p99: %.1f ms (%d comprobaciones)",
+                    latencias.getPercentileMicros(50) / 1000.0,
+                    latencias.getPercentileMicros(99) / 1000.0,
+                    latencias.getCount());
+            }
+        };
+        lblEstadoBD.setToolTipText("");
+        contentPanel.add(lblEstadoBD, BorderLayout.SOUTH);
+        DatabaseHealthMonitor.addListener(estadoBDListener);
+        actualizarEstadoBD();
+        
         // Show dashboard by default
         cardLayout.show(cardPanel, PANEL_DASHBOARD);
     }
     
+    @Override
+    public void dispose() {
+        DatabaseHealthMonitor.removeListener(estadoBDListener);
+        super.dispose();
+    }
+    
+    /**
+     * Muestra el estado publicado por el heartbeat de la base de datos
+     */
+    private void actualizarEstadoBD() {
+        switch (DatabaseHealthMonitor.getReadiness()) {
+            case UP:
+                lblEstadoBD.setText("Base de datos: conectada");
+                lblEstadoBD.setForeground(new Color(0, 128, 0));
+                break;
+            case DEGRADED:
+                lblEstadoBD.setText("Base de datos: respuesta lenta");
+                lblEstadoBD.setForeground(new Color(200, 120, 0));
+                break;
+            default:
+                lblEstadoBD.setText("Base de datos: sin conexión (se muestran los últimos datos cargados)");
+                lblEstadoBD.setForeground(Color.RED);
+                break;
+        }
+    }
+    
+    /**
+     * Vuelve a leer la configuración de la base de datos sin reiniciar la aplicación
+     */
+    private void recargarConfiguracion() {
+        DatabaseBootstrap.reload().whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                showError("No se pudo recargar la configuración: " + cause.getMessage());
+            } else {
+                showInfo("Configuración de la base de datos recargada");
+            }
+        }));
+    }
+    
     private JMenuBar createMenuBar() {
         JMenuBar menuBar = new JMenuBar();
         
@@ -108,7 +185,10 @@ public class MainView extends BaseForm {
                 System.exit(0);
             }
         });
+        JMenuItem itemRecargarConfig = new JMenuItem("Recargar configuración de BD");
+        itemRecargarConfig.addActionListener(e -> recargarConfiguracion());
         menuInicio.add(itemDashboard);
+        menuInicio.add(itemRecargarConfig);
         menuInicio.addSeparator(); // Add separator between dashboard and exit
         menuInicio.add(itemSalir);
         
@@ -229,6 +309,10 @@ public class MainView extends BaseForm {
         table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         table.getTableHeader().setReorderingAllowed(false);
         
+        // Las actividades se cargan por páginas; este botón pide la siguiente
+        btnMasActividades = new JButton("Cargar más");
+        btnMasActividades.addActionListener(e -> loadMoreActividades(tableModel));
+        
         // Load data from database
         loadActividadesData(tableModel);
         
@@ -259,8 +343,7 @@ public class MainView extends BaseForm {
             }
             
             int actividadId = (Integer) tableModel.getValueAt(selectedRow, 0);
-            ActividadController controller = new ActividadController();
-            Actividad actividad = controller.obtenerActividadPorId(actividadId);
+            Actividad actividad = actividadController.obtenerActividadPorId(actividadId);
             
             if (actividad != null) {
                 ActividadFormView formView = new ActividadFormView(actividad);
@@ -284,9 +367,8 @@ public class MainView extends BaseForm {
             
             if (showConfirm("¿Está seguro que desea eliminar esta actividad?")) {
                 int actividadId = (Integer) tableModel.getValueAt(selectedRow, 0);
-                ActividadController controller = new ActividadController();
                 
-                if (controller.eliminarActividad(actividadId)) {
+                if (actividadController.eliminarActividad(actividadId)) {
                     showInfo("Actividad eliminada exitosamente.");
                     loadActividadesData(tableModel); // Refresh table
                 } else {
@@ -298,6 +380,7 @@ public class MainView extends BaseForm {
         JButton btnRefrescar = new JButton("Refrescar");
         btnRefrescar.addActionListener(e -> loadActividadesData(tableModel));
         
+        buttonPanel.add(btnMasActividades);
         buttonPanel.add(btnNueva);
         buttonPanel.add(btnEditar);
         buttonPanel.add(btnEliminar);
@@ -310,37 +393,35 @@ public class MainView extends BaseForm {
     private void loadActividadesData(DefaultTableModel tableModel) {
         // Clear existing data
         tableModel.setRowCount(0);
-        
+        ultimaActividad = null;
+        loadMoreActividades(tableModel);
+    }
+    
+    /**
+     * Agrega a la tabla la siguiente página de actividades
+     */
+    private void loadMoreActividades(DefaultTableModel tableModel) {
         try {
-            ActividadController actividadController = new ActividadController();
-            CampanaController campanaController = new CampanaController();
-            List<Actividad> actividades = actividadController.listarActividades();
+            Page<Actividad> pagina = actividadController.listarActividadesConCampanaPaginadas(ultimaActividad, TAMANO_PAGINA);
             
-            for (Actividad actividad : actividades) {
-                // Get campaign name instead of just ID
-                String nombreCampana = "Campaña " + actividad.getIdCampana(); // Default fallback
-                try {
-                    Campana campana = campanaController.obtenerCampanaPorId(actividad.getIdCampana());
-                    if (campana != null) {
-                        nombreCampana = campana.getNombre();
-                    }
-                } catch (Exception e) {
-                    // Keep default if campaign not found
-                }
-                
+            for (Actividad actividad : pagina.getItems()) {
                 Object[] row = {
                     actividad.getIdActividad(),
                     actividad.getNombre(),
                     actividad.getDescripcion(),
                     actividad.getFecha(),
                     actividad.getHora(),
-                    nombreCampana,
+                    actividad.getNombreCampana(),
                     actividad.getCupoMaximo(),
                     actividad.getParticipantesRegistrados(),
                     actividad.getEstado()
                 };
                 tableModel.addRow(row);
             }
+            if (!pagina.isEmpty()) {
+                ultimaActividad = pagina.getLast();
+            }
+            btnMasActividades.setEnabled(pagina.hasNext());
         } catch (Exception e) {
             showError("Error al cargar las actividades: " + e.getMessage());
         }
@@ -351,26 +432,16 @@ public class MainView extends BaseForm {
         tableModel.setRowCount(0);
         
         try {
-            List<model.Prediccion> predicciones = prediccionController.listarPredicciones();
+            // El nombre de la campaña llega en la misma consulta
+            List<model.Prediccion> predicciones = prediccionController.listarPrediccionesConCampana();
             
             for (model.Prediccion prediccion : predicciones) {
-                // Get campaign name instead of just ID
-                String nombreCampana = "Campaña " + prediccion.getIdCampana(); // Default fallback
-                try {
-                    Campana campana = campanaController.obtenerCampanaPorId(prediccion.getIdCampana());
-                    if (campana != null) {
-                        nombreCampana = campana.getNombre();
-                    }
-                } catch (Exception e) {
-                    // Keep default if campaign not found
-                }
-                
                 // Format confidence level as percentage
                 String nivelConfianza = String.format("%.1f%%", prediccion.getNivelConfianza());
                 
                 Object[] row = {
                     prediccion.getIdPrediccion(),
-                    nombreCampana,
+                    prediccion.getNombreCampana(),
                     prediccion.getFechaPrediccion(),
                     prediccion.getParticipacionEstimada(),
                     nivelConfianza,
@@ -393,8 +464,18 @@ public class MainView extends BaseForm {
         JScrollPane scrollPane = new JScrollPane(table);
         panel.add(scrollPane, BorderLayout.CENTER);
         
+        // Participantes ordenados por apellido, cargados por páginas
+        DefaultTableModel tableModel = (DefaultTableModel) table.getModel();
+        btnMasParticipantes = createButton("Cargar más");
+        btnMasParticipantes.addActionListener(e -> loadMoreParticipantes(tableModel));
+        loadMoreParticipantes(tableModel);
+        
         // Add buttons
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(btnMasParticipantes);
+        JButton btnImportar = createButton("Importar CSV");
+        btnImportar.addActionListener(e -> importarParticipantes(tableModel));
+        buttonPanel.add(btnImportar);
         buttonPanel.add(createButton("Nuevo Participante"));
         buttonPanel.add(createButton("Editar"));
         buttonPanel.add(createButton("Eliminar"));
@@ -403,6 +484,111 @@ public class MainView extends BaseForm {
         return panel;
     }
     
+    /**
+     * Agrega a la tabla la siguiente página de participantes
+     */
+    private void loadMoreParticipantes(DefaultTableModel tableModel) {
+        try {
+            Page<Participante> pagina = participanteController.listarParticipantesPaginados(ultimoParticipante, TAMANO_PAGINA);
+            for (Participante participante : pagina.getItems()) {
+                tableModel.addRow(new Object[]{
+                    participante.getIdParticipante(),
+                    participante.getNombre(),
+                    participante.getApellido(),
+                    participante.getDni(),
+                    participante.getEdad(),
+                    participante.getSexo(),
+                    participante.getDireccion()
+                });
+            }
+            if (!pagina.isEmpty()) {
+                ultimoParticipante = pagina.getLast();
+            }
+            btnMasParticipantes.setEnabled(pagina.hasNext());
+        } catch (Exception e) {
+            showError("Error al cargar los participantes: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Importa participantes desde un archivo CSV en segundo plano, mostrando el avance
+     */
+    private void importarParticipantes(DefaultTableModel tableModel) {
+        JFileChooser selector = new JFileChooser();
+        selector.setFileFilter(new FileNameExtensionFilter("Archivos CSV", "csv"));
+        if (selector.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File archivo = selector.getSelectedFile();
+        
+        // Cada fase (lectura, validación, carga, integración) ocupa una cuarta parte de la barra
+        int fases = ParticipanteImport.Phase.DONE.ordinal();
+        ProgressMonitor monitor = new ProgressMonitor(this, "Importando " + archivo.getName(), "Leyendo archivo...", 0, fases * 100);
+        monitor.setMillisToDecideToPopup(0);
+        monitor.setMillisToPopup(0);
+        ParticipanteImport.ProgressListener progreso = (fase, hechos, total) -> SwingUtilities.invokeLater(() -> {
+            if (fase == ParticipanteImport.Phase.DONE) {
+                return;
+            }
+            monitor.setNote(String.format("%s: %d de %d", nombreFase(fase), hechos, total));
+            monitor.setProgress(fase.ordinal() * 100 + (total > 0 ? hechos * 100 / total : 100));
+        });
+        
+        new SwingWorker<ParticipanteImport.Result, Void>() {
+            @Override
+            protected ParticipanteImport.Result doInBackground() {
+                return participanteController.importarParticipantes(archivo, progreso);
+            }
+            
+            @Override
+            protected void done() {
+                monitor.close();
+                ParticipanteImport.Result resultado;
+                try {
+                    resultado = get();
+                } catch (Exception e) {
+                    resultado = null;
+                }
+                if (resultado == null) {
+                    showError("No se pudo importar el archivo " + archivo.getName() + ". No se agregó ningún participante.");
+                    return;
+                }
+                
+                StringBuilder mensaje = new StringBuilder();
+                mensaje.append("Registros leídos: ").append(resultado.getRead())
+                    .append("\nParticipantes agregados: ").append(resultado.getImported())
+                    .append("\nRegistros rechazados: ").append(resultado.getRejected());
+                if (resultado.getRejectsFile() != null) {
+                    mensaje.append("\n\nLos rechazados y su motivo están en:\n").append(resultado.getRejectsFile());
+                } else if (resultado.getRejectsError() != null) {
+                    mensaje.append("\n\nNo se pudo guardar el archivo de rechazados: ").append(resultado.getRejectsError());
+                }
+                JOptionPane.showMessageDialog(MainView.this, mensaje.toString(), "Importación finalizada",
+                    JOptionPane.INFORMATION_MESSAGE);
+                
+                // Volver a la primera página para mostrar los nuevos participantes
+                tableModel.setRowCount(0);
+                ultimoParticipante = null;
+                loadMoreParticipantes(tableModel);
+            }
+        }.execute();
+    }
+    
+    private static String nombreFase(ParticipanteImport.Phase fase) {
+        switch (fase) {
+            case READING:
+                return "Leyendo";
+            case VALIDATING:
+                return "Validando";
+            case LOADING:
+                return "Cargando";
+            case MERGING:
+                return "Integrando";
+            default:
+                return "Finalizado";
+        }
+    }
+    
     private JPanel createPrediccionesPanel() {
         JPanel panel = new JPanel(new BorderLayout(10, 10));
         panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
@@ -1,9 +1,10 @@
 package view;
 
+import controller.AppContext;
 import controller.PrediccionController;
 import controller.CampanaController;
 import model.Prediccion;
-import model.Campana;
+import model.CampanaResumen;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -13,7 +14,7 @@ import java.util.Date;
 import java.util.List;
 
 public class PrediccionFormView extends JDialog {
-    private JComboBox<Campana> cmbCampana;
+    private JComboBox<CampanaResumen> cmbCampana;
     private JSpinner spnParticipacionEstimada;
     private JLabel lblNivelConfianza;
     private JTextArea txtNotas;
@@ -27,8 +28,8 @@ public class PrediccionFormView extends JDialog {
     
     public PrediccionFormView(Prediccion prediccion) {
         this.prediccionActual = prediccion;
-        this.prediccionController = new PrediccionController();
-        this.campanaController = new CampanaController();
+        this.prediccionController = AppContext.get().getPrediccionController();
+        this.campanaController = AppContext.get().getCampanaController();
         
         setTitle(prediccion == null ? "Generar Nueva Predicción" : "Editar Predicción");
         setModal(true);
@@ -52,8 +53,8 @@ public class PrediccionFormView extends JDialog {
             public Component getListCellRendererComponent(JList<?> list, Object value, 
                     int index, boolean isSelected, boolean cellHasFocus) {
                 super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-                if (value instanceof Campana) {
-                    Campana campana = (Campana) value;
+                if (value instanceof CampanaResumen) {
+                    CampanaResumen campana = (CampanaResumen) value;
                     setText(campana.getNombre());
                 }
                 return this;
@@ -146,8 +147,8 @@ public class PrediccionFormView extends JDialog {
     private void loadData() {
         // Load campaigns
         try {
-            List<Campana> campanas = campanaController.listarCampanas();
-            for (Campana campana : campanas) {
+            List<CampanaResumen> campanas = campanaController.listarCampanasResumen();
+            for (CampanaResumen campana : campanas) {
                 cmbCampana.addItem(campana);
             }
         } catch (Exception e) {
@@ -166,7 +167,7 @@ public class PrediccionFormView extends JDialog {
             
             // Select the appropriate campaign
             for (int i = 0; i < cmbCampana.getItemCount(); i++) {
-                Campana campana = cmbCampana.getItemAt(i);
+                CampanaResumen campana = cmbCampana.getItemAt(i);
                 if (campana.getIdCampana() == prediccionActual.getIdCampana()) {
                     cmbCampana.setSelectedItem(campana);
                     break;
@@ -184,30 +185,26 @@ public class PrediccionFormView extends JDialog {
         }
         
         try {
-            Campana campanaSeleccionada = (Campana) cmbCampana.getSelectedItem();
+            CampanaResumen campanaSeleccionada = (CampanaResumen) cmbCampana.getSelectedItem();
             int participacionEstimada = (Integer) spnParticipacionEstimada.getValue();
             String notas = txtNotas.getText().trim();
             
             boolean exito;
             if (prediccionActual == null) {
                 // Create new prediction
-                exito = prediccionController.generarPrediccion(
+                Prediccion nuevaPrediccion = prediccionController.generarPrediccion(
                     campanaSeleccionada.getIdCampana(), 
                     notas
                 );
+                exito = nuevaPrediccion != null;
                 
                 // If auto-generation was used, update with manual value
                 if (exito && participacionEstimada != 50) { // 50 is default from controller
-                    Prediccion nuevaPrediccion = prediccionController.obtenerPrediccionPorCampana(
-                        campanaSeleccionada.getIdCampana()
+                    prediccionController.actualizarPrediccion(
+                        nuevaPrediccion.getIdPrediccion(),
+                        participacionEstimada,
+                        notas
                     );
-                    if (nuevaPrediccion != null) {
-                        prediccionController.actualizarPrediccion(
-                            nuevaPrediccion.getIdPrediccion(),
-                            participacionEstimada,
-                            notas
-                        );
-                    }
                 }
             } else {
                 // Update existing prediction
@@ -240,7 +237,7 @@ public class PrediccionFormView extends JDialog {
     }
     
     private void generarPrediccionAutomatica(ActionEvent e) {
-        Campana campanaSeleccionada = (Campana) cmbCampana.getSelectedItem();
+        CampanaResumen campanaSeleccionada = (CampanaResumen) cmbCampana.getSelectedItem();
         if (campanaSeleccionada == null) {
             JOptionPane.showMessageDialog(this,
                 "Por favor, seleccione una campaña primero.",
@@ -251,30 +248,24 @@ public class PrediccionFormView extends JDialog {
         
         try {
             // Generate automatic prediction using the controller's algorithm
-            boolean exito = prediccionController.generarPrediccion(
+            Prediccion prediccionGenerada = prediccionController.generarPrediccion(
                 campanaSeleccionada.getIdCampana(),
                 "Predicción generada automáticamente basada en datos históricos"
             );
             
-            if (exito) {
-                // Get the generated prediction and update form
-                Prediccion prediccionGenerada = prediccionController.obtenerPrediccionPorCampana(
-                    campanaSeleccionada.getIdCampana()
-                );
+            if (prediccionGenerada != null) {
+                // Update form with the generated prediction
+                spnParticipacionEstimada.setValue(prediccionGenerada.getParticipacionEstimada());
+                lblNivelConfianza.setText(String.format("%.1f%%", prediccionGenerada.getNivelConfianza()));
+                txtNotas.setText(prediccionGenerada.getNotas());
                 
-                if (prediccionGenerada != null) {
-                    spnParticipacionEstimada.setValue(prediccionGenerada.getParticipacionEstimada());
-                    lblNivelConfianza.setText(String.format("%.1f%%", prediccionGenerada.getNivelConfianza()));
-                    txtNotas.setText(prediccionGenerada.getNotas());
-                    
-                    JOptionPane.showMessageDialog(this,
-                        "Predicción generada automáticamente.\n" +
-                        "Participación estimada: " + prediccionGenerada.getParticipacionEstimada() + " personas\n" +
-                        "Nivel de confianza: " + String.format("%.1f%%", prediccionGenerada.getNivelConfianza()) + "\n" +
-                        "Puede modificar los valores antes de guardar.",
-                        "Predicción Generada",
-                        JOptionPane.INFORMATION_MESSAGE);
-                }
+                JOptionPane.showMessageDialog(this,
+                    "Predicción generada automáticamente.\n" +
+                    "Participación estimada: " + prediccionGenerada.getParticipacionEstimada() + " personas\n" +
+                    "Nivel de confianza: " + String.format("%.1f%%", prediccionGenerada.getNivelConfianza()) + "\n" +
+                    "Puede modificar los valores antes de guardar.",
+                    "Predicción Generada",
+                    JOptionPane.INFORMATION_MESSAGE);
             } else {
                 JOptionPane.showMessageDialog(this,
                     "Error al generar la predicción automática.",
@@ -1,13 +1,14 @@
 package view;
 
 import controller.ActividadController;
+import controller.AppContext;
 import controller.ParticipanteController;
 import controller.RegistroParticipacionController;
-import model.Participante;
+import model.ParticipanteResumen;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import model.Actividad;
+import model.ActividadResumen;
 
 public class RegistroParticipacionView extends JFrame {
     private JTextField txtDni;
@@ -30,8 +31,8 @@ public class RegistroParticipacionView extends JFrame {
     private final RegistroParticipacionController registroController;
 
     public RegistroParticipacionView() {
-        participanteController = new ParticipanteController();
-        registroController = new RegistroParticipacionController();
+        participanteController = AppContext.get().getParticipanteController();
+        registroController = AppContext.get().getRegistroParticipacionController();
 
         setTitle("Registro de Participación");
         setSize(400, 350);
@@ -215,11 +216,11 @@ public class RegistroParticipacionView extends JFrame {
     }
 
     private void cargarActividades() {
-        ActividadController actividadController = new ActividadController();
-        java.util.List<Actividad> actividades = actividadController.listarActividades();
+        ActividadController actividadController = AppContext.get().getActividadController();
+        java.util.List<ActividadResumen> actividades = actividadController.listarActividadesResumen();
         
         cmbActividad.removeAllItems();
-        for (Actividad actividad : actividades) {
+        for (ActividadResumen actividad : actividades) {
             cmbActividad.addItem(actividad.getIdActividad() + " - " + actividad.getNombre());
         }
     }
@@ -237,8 +238,8 @@ public class RegistroParticipacionView extends JFrame {
                 return;
             }
             
-            // Buscar participante por DNI
-            Participante participante = participanteController.buscarPorDni(dni);
+            // Buscar participante por DNI (índice en memoria, con respaldo en la base de datos)
+            ParticipanteResumen participante = participanteController.buscarResumenPorDni(dni);
             if (participante == null) {
                 JOptionPane.showMessageDialog(this,
                     "No se encontró un participante con ese DNI",
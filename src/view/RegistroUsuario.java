@@ -1,5 +1,6 @@
 package view;
 
+import controller.AppContext;
 import controller.UsuarioController;
 import model.Usuario;
 import javax.swing.*;
@@ -21,7 +22,7 @@ public class RegistroUsuario extends JFrame {
     private final UsuarioController usuarioController;
     
     public RegistroUsuario() {
-        usuarioController = new UsuarioController();
+        usuarioController = AppContext.get().getUsuarioController();
         initComponents();
     }
     